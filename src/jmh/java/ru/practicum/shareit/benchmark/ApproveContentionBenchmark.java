@@ -0,0 +1,112 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.UnavailableItemException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Стресс-тест подтверждения: 16 потоков одновременно подтверждают бронирования одной вещи.
+// На каждый часовой слот приходится SLOT_CONTENDERS пересекающихся бронирований, и каждое
+// бронирование подтверждается дважды ("двойной клик"). После итерации проверяется,
+// что в БД нет пересекающихся APPROVED и число подтверждений совпадает с числом успешных вызовов.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class ApproveContentionBenchmark {
+
+    private static final int USERS = 10;
+    private static final long ITEM_ID = 1L;
+    private static final long BOOKER_ID = 3L;
+    private static final int BOOKINGS_PER_ITERATION = 10_000;
+    private static final int SLOT_CONTENDERS = 10;
+    private static final long FIRST_BOOKING_ID = 1_000_000L;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private JdbcTemplate jdbc;
+    private long owner;
+
+    private int iteration;
+    private long firstId;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong approved = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.start("approve");
+        BenchmarkDataset.seed(context, USERS, 1, 0);
+        bookingService = context.getBean(BookingService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+        owner = BenchmarkDataset.ownerOf(ITEM_ID, USERS);
+    }
+
+    // Каждая итерация получает новые WAITING-бронирования на непересекающемся с прошлыми отрезке времени
+    @Setup(Level.Iteration)
+    public void createWaitingBookings() {
+        firstId = FIRST_BOOKING_ID + (long) iteration * BOOKINGS_PER_ITERATION;
+        LocalDateTime base = LocalDateTime.now().plusYears(1).plusHours((long) iteration * BOOKINGS_PER_ITERATION);
+        iteration++;
+
+        List<Object[]> rows = new ArrayList<>(BOOKINGS_PER_ITERATION);
+        for (int i = 0; i < BOOKINGS_PER_ITERATION; i++) {
+            LocalDateTime start = base.plusHours(i / SLOT_CONTENDERS).plusMinutes(i % SLOT_CONTENDERS);
+            rows.add(new Object[]{firstId + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(30)),
+                    ITEM_ID, BOOKER_ID, owner});
+        }
+        jdbc.batchUpdate("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, owner_id, status, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 'WAITING', 0)", rows);
+        next.set(0);
+        approved.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verify() {
+        long lastId = firstId + BOOKINGS_PER_ITERATION;
+        Long overlaps = jdbc.queryForObject("SELECT COUNT(*) FROM bookings a JOIN bookings b "
+                + "ON a.item_id = b.item_id AND a.id < b.id "
+                + "AND a.start_date < b.end_date AND a.end_date > b.start_date "
+                + "WHERE a.status = 'APPROVED' AND b.status = 'APPROVED' AND a.item_id = ?", Long.class, ITEM_ID);
+        Long inDb = jdbc.queryForObject("SELECT COUNT(*) FROM bookings "
+                + "WHERE status = 'APPROVED' AND id >= ? AND id < ?", Long.class, firstId, lastId);
+
+        if (overlaps != 0) {
+            throw new IllegalStateException("Двойное бронирование: " + overlaps + " пересекающихся пар APPROVED");
+        }
+        if (inDb != approved.get()) {
+            throw new IllegalStateException("Потерянное обновление: успешных подтверждений " + approved.get()
+                    + ", в БД " + inDb);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean approve() {
+        long bookingId = firstId + (next.getAndIncrement() / 2) % BOOKINGS_PER_ITERATION;
+        try {
+            bookingService.approve(bookingId, owner, true);
+            approved.incrementAndGet();
+            return true;
+        } catch (UnavailableItemException | ValidationException | OptimisticLockingFailureException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Контекст приложения на H2 в памяти и наполнение его данными реалистичного объёма.
+// Каждый десятый букинг принадлежит пользователю HOT_USER_ID - "крупный арендатор" с глубокой историей.
+final class BenchmarkDataset {
+
+    static final long HOT_USER_ID = 1L;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkDataset() {
+    }
+
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        return start(WebApplicationType.NONE, name, properties);
+    }
+
+    // Полноценный веб-сервер на случайном порту - для нагрузочных тестов через HTTP
+    static ConfigurableApplicationContext startWeb(String name, String... properties) {
+        List<String> all = new ArrayList<>(List.of(properties));
+        all.add("server.port=0");
+        return start(WebApplicationType.SERVLET, name, all.toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String name, String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                "logging.level.org.springframework.transaction.interceptor=WARN",
+                "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN"));
+        all.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(ShareItApp.class)
+                .web(type)
+                .profiles("test")
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    static void seed(ConfigurableApplicationContext context, int users, int items, int bookings) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        insert(jdbc, "INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users,
+                i -> new Object[]{i, "user" + i, "user" + i + "@mail.ru"});
+        insert(jdbc, "INSERT INTO items (id, name, description, is_available, owner_id) VALUES (?, ?, ?, ?, ?)", items,
+                i -> new Object[]{i, "item" + i, "description of item " + i, true, ownerOf(i, users)});
+
+        LocalDateTime base = LocalDateTime.now().minusYears(2);
+        insert(jdbc, "INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, owner_id, status, version) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)", bookings,
+                i -> {
+                    LocalDateTime start = base.plusMinutes(i * 90L);
+                    long booker = i % 10 == 0 ? HOT_USER_ID : i % users + 1;
+                    long item = i % items + 1;
+                    return new Object[]{i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)),
+                            item, booker, ownerOf(item, users), "APPROVED"};
+                });
+
+        // id заданы явно - сдвигаем последовательности, чтобы новые записи через JPA не пересекались с ними
+        restart(jdbc, "users_seq", users);
+        restart(jdbc, "items_seq", items);
+        restart(jdbc, "bookings_seq", bookings);
+    }
+
+    private static void restart(JdbcTemplate jdbc, String sequence, int count) {
+        jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (count + 1));
+    }
+
+    static long ownerOf(long itemId, int users) {
+        return (itemId % users) + 1;
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, int count, Row row) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 1; i <= count; i++) {
+            batch.add(row.values(i));
+            if (batch.size() == BATCH_SIZE) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Row {
+        Object[] values(long index);
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.service.BookingCursor;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemWithBookingsDto;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути чтения на наполненной H2: списки бронирований арендатора и вещи владельца
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEEP_OFFSET = 50_000;
+
+    @Param({"1000000"})
+    private int bookings;
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"10000"})
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private ItemService itemService;
+    private BookingCursor deepCursor;
+    private long owner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.start("bookings");
+        BenchmarkDataset.seed(context, users, items, bookings);
+        bookingService = context.getBean(BookingService.class);
+        itemService = context.getBean(ItemService.class);
+        owner = BenchmarkDataset.ownerOf(1, users);
+
+        // Данные залиты в обход сервиса - пересчитываем указатели last/next для вещей владельца
+        ItemBookingPointers pointers = context.getBean(ItemBookingPointers.class);
+        for (long itemId = 1; itemId <= items; itemId += users) {
+            pointers.refresh(itemId);
+        }
+
+        // Курсор на той же глубине, что и DEEP_OFFSET, для сравнения OFFSET и keyset
+        deepCursor = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT start_date, id FROM bookings WHERE booker_id = ? "
+                        + "ORDER BY start_date DESC, id DESC OFFSET ? ROWS FETCH FIRST 1 ROWS ONLY",
+                (rs, n) -> new BookingCursor(rs.getObject(1, Timestamp.class).toLocalDateTime(), rs.getLong(2)),
+                BenchmarkDataset.HOT_USER_ID, DEEP_OFFSET - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookerFirstPage() {
+        return bookingService.getAllByBooker(BenchmarkDataset.HOT_USER_ID, BookingState.ALL, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookerDeepOffsetPage() {
+        return bookingService.getAllByBooker(BenchmarkDataset.HOT_USER_ID, BookingState.ALL, DEEP_OFFSET, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookerDeepCursorPage() {
+        return bookingService.getAllByBookerAfter(BenchmarkDataset.HOT_USER_ID, BookingState.ALL, deepCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookerPast() {
+        return bookingService.getAllByBooker(BenchmarkDataset.HOT_USER_ID, BookingState.PAST, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ItemWithBookingsDto> ownerItemsWithLastAndNext() {
+        return itemService.getItemsOfUser(owner, 0, PAGE_SIZE);
+    }
+}
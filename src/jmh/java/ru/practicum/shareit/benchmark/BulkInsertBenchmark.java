@@ -0,0 +1,95 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Пакетная вставка вещей одной транзакцией, как при ночном импорте каталогов партнёров.
+// idStrategy=SEQUENCE - Item с id из последовательности (pooled-lo), IDENTITY - та же строка в IdentityItem.
+// jdbcBatchSize=1 - построчные INSERT, 50 - пакеты JDBC; для IDENTITY Hibernate пакеты не собирает,
+// поэтому IDENTITY при любом размере пакета - базовая линия, с которой сравнивается SEQUENCE/50.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int USERS = 100;
+    private static final int ITEMS_PER_IMPORT = 1000;
+
+    @Param({"IDENTITY", "SEQUENCE"})
+    private String idStrategy;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private ItemRepository itemRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private User owner;
+    private long imported;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.start("bulk" + idStrategy + jdbcBatchSize,
+                "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+        BenchmarkDataset.seed(context, USERS, 0, 0);
+        itemRepository = context.getBean(ItemRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        owner = context.getBean(UserRepository.class).findById(BenchmarkDataset.HOT_USER_ID).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_IMPORT)
+    public int importItems() {
+        return "IDENTITY".equals(idStrategy) ? importIdentityItems() : importSequenceItems();
+    }
+
+    private int importSequenceItems() {
+        List<Item> items = new ArrayList<>(ITEMS_PER_IMPORT);
+        for (int i = 0; i < ITEMS_PER_IMPORT; i++) {
+            long n = imported++;
+            items.add(Item.builder()
+                    .name("imported" + n)
+                    .description("partner catalog item " + n)
+                    .available(true)
+                    .owner(owner)
+                    .build());
+        }
+        return transactionTemplate.execute(status -> itemRepository.saveAll(items)).size();
+    }
+
+    // Общий EntityManager привязан к транзакции TransactionTemplate, как и репозиторий в SEQUENCE-ветке
+    private int importIdentityItems() {
+        return transactionTemplate.execute(status -> {
+            for (int i = 0; i < ITEMS_PER_IMPORT; i++) {
+                long n = imported++;
+                entityManager.persist(IdentityItem.builder()
+                        .name("imported" + n)
+                        .description("partner catalog item " + n)
+                        .available(true)
+                        .owner(owner)
+                        .build());
+            }
+            return ITEMS_PER_IMPORT;
+        });
+    }
+}
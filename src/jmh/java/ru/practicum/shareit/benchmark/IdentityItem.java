@@ -0,0 +1,33 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.practicum.shareit.user.model.User;
+
+// Копия колонок Item с id из IDENTITY - базовая линия для BulkInsertBenchmark.
+// Hibernate не может собрать такие INSERT в пакет: id нужен сразу после каждой строки.
+@Entity
+@Table(name = "benchmark_identity_items")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdentityItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "name", nullable = false, length = 255)
+    private String name;
+
+    @Column(name = "description", nullable = false, length = 1000)
+    private String description;
+
+    @Column(name = "is_available", nullable = false)
+    private Boolean available;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false, updatable = false)
+    private User owner;
+}
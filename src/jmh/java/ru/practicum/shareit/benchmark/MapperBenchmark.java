@@ -0,0 +1,76 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.map.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.map.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.map.UserMapper;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Преобразования сущностей в DTO на страницах типичного размера
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private List<Booking> bookings;
+    private List<Item> items;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        bookings = new ArrayList<>(size);
+        items = new ArrayList<>(size);
+        users = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        for (long i = 1; i <= size; i++) {
+            User user = User.builder().id(i).name("user" + i).email("user" + i + "@mail.ru").build();
+            Item item = Item.builder().id(i).name("item" + i).description("description " + i)
+                    .available(true).owner(user).build();
+            users.add(user);
+            items.add(item);
+            bookings.add(Booking.builder().id(i).start(start.plusHours(i)).end(start.plusHours(i + 1))
+                    .item(item).booker(user).status(BookingStatus.APPROVED).build());
+        }
+    }
+
+    @Benchmark
+    public List<BookingResponseDto> bookingList() {
+        return BookingMapper.toBookingResponseDtoList(bookings);
+    }
+
+    @Benchmark
+    public List<ItemDto> itemList() {
+        List<ItemDto> result = new ArrayList<>(size);
+        for (Item item : items) {
+            result.add(ItemMapper.toItemDto(item));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserDto> userList() {
+        List<UserDto> result = new ArrayList<>(size);
+        for (User user : users) {
+            result.add(UserMapper.toUserDto(user));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.booking.event.OwnerBookingStreams;
+import ru.practicum.shareit.util.HeaderConstants;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Soak-тест SSE на одном узле: 10 000 простаивающих подписок на /bookings/owner/stream (по одной на владельца)
+// и одна подписка-зонд. Замеряется время от POST /bookings до получения события зондом (p50/p95/p99);
+// вспомогательный счётчик openStreams показывает, что за итерацию не отвалилась ни одна подписка.
+// Плановый опрос outbox отодвинут на минуту - событие доставляет только пробуждение ретранслятора после коммита.
+// Для 10 000 соединений нужен ulimit -n не меньше 25 000 (соединения клиента и сервера в одном процессе).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 30)
+@Fork(1)
+public class OwnerStreamSoakBenchmark {
+
+    @Param({"10000"})
+    private int subscribers;
+
+    private static final long PROBE_ITEM_ID = 1L;
+
+    private ConfigurableApplicationContext context;
+    private OwnerBookingStreams streams;
+    private HttpClient http;
+    private ExecutorService clientThreads;
+    private String baseUrl;
+    private long booker;
+
+    private final List<CompletableFuture<HttpResponse<Stream<String>>>> idle = new ArrayList<>();
+    private final BlockingQueue<String> probeEvents = new LinkedBlockingQueue<>();
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long openStreams;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        int users = subscribers + 1;
+        context = BenchmarkDataset.startWeb("sse",
+                "spring.threads.virtual.enabled=true",
+                "shareit.bookings.stream.max-subscribers=" + (subscribers * 2),
+                "shareit.outbox.relay.interval-ms=60000");
+        BenchmarkDataset.seed(context, users, users, 0);
+        streams = context.getBean(OwnerBookingStreams.class);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder()
+                .executor(clientThreads)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        long probeOwner = BenchmarkDataset.ownerOf(PROBE_ITEM_ID, users);
+        booker = probeOwner % users + 1;
+        subscribe(probeOwner).thenAccept(response -> clientThreads.execute(() -> response.body()
+                .filter(line -> line.startsWith("event:"))
+                .forEach(probeEvents::add)));
+
+        // Остальные подписки только держат соединение: строки пульса читаются и отбрасываются
+        for (long owner = 1; owner <= subscribers; owner++) {
+            if (owner == probeOwner) {
+                continue;
+            }
+            idle.add(subscribe(owner).whenComplete((response, e) -> {
+                if (response != null) {
+                    clientThreads.execute(() -> response.body().forEach(line -> { }));
+                }
+            }));
+        }
+        while (streams.size() < subscribers) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clientThreads.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public String pushLatency(Counters counters) throws IOException, InterruptedException {
+        // Непересекающиеся слоты, чтобы бронирование вещи-зонда всегда создавалось
+        LocalDateTime start = LocalDateTime.now().plusYears(1).plusHours(nextSlot.getAndIncrement());
+        String body = "{\"itemId\":" + PROBE_ITEM_ID + ",\"start\":\"" + start + "\",\"end\":\""
+                + start.plusMinutes(30) + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/bookings"))
+                .header(HeaderConstants.SHARER_USER_ID, String.valueOf(booker))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 201) {
+            throw new IllegalStateException("Бронирование не создано: HTTP " + status);
+        }
+
+        String event = probeEvents.poll(10, TimeUnit.SECONDS);
+        if (event == null) {
+            throw new IllegalStateException("Событие не пришло за 10 секунд");
+        }
+        counters.openStreams = streams.size();
+        return event;
+    }
+
+    private CompletableFuture<HttpResponse<Stream<String>>> subscribe(long owner) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/bookings/owner/stream"))
+                .header(HeaderConstants.SHARER_USER_ID, String.valueOf(owner))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.util.HeaderConstants;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Нагрузочный тест HTTP-слоя: платформенные потоки Tomcat против виртуальных.
+// Фоновые клиенты (по умолчанию 5000) непрерывно шлют GET /bookings; замеряемый поток делает такой же
+// запрос, и JMH в режиме SampleTime даёт его p50/p95/p99 под этой нагрузкой.
+// Общая пропускная способность фоновых клиентов - вспомогательный счётчик backgroundRequests.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+public class RequestLoadBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"5000"})
+    private int clients;
+
+    private static final int USERS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient http;
+    private ExecutorService clientThreads;
+    private String baseUrl;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong completed = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long backgroundRequests;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkDataset.startWeb("load" + virtualThreads,
+                "spring.threads.virtual.enabled=" + virtualThreads,
+                "server.tomcat.max-connections=" + (clients * 2));
+        BenchmarkDataset.seed(context, USERS, USERS, 100_000);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder()
+                .executor(clientThreads)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        running.set(true);
+        for (int i = 0; i < clients; i++) {
+            clientThreads.submit(this::backgroundClient);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running.set(false);
+        clientThreads.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int getBookings(Counters counters) throws IOException, InterruptedException {
+        counters.backgroundRequests += completed.getAndSet(0);
+        return send();
+    }
+
+    private void backgroundClient() {
+        while (running.get()) {
+            try {
+                send();
+                completed.incrementAndGet();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                // соединение отклонено под нагрузкой - продолжаем
+            }
+        }
+    }
+
+    private int send() throws IOException, InterruptedException {
+        long userId = ThreadLocalRandom.current().nextLong(1, USERS + 1);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/bookings?state=ALL&from=0&size=10"))
+                .header(HeaderConstants.SHARER_USER_ID, String.valueOf(userId))
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -1,19 +1,36 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.event.OwnerBookingStreams;
+import ru.practicum.shareit.booking.service.BookingCursor;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.util.HeaderConstants;
+import ru.practicum.shareit.util.RequestContext;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -22,7 +39,15 @@ import java.util.List;
 @Validated
 public class BookingController {
 
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV_HEADER =
+            "id,start,end,status,item_id,item_name,booker_id,booker_name,booker_email\n";
+
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final RequestContext requestContext;
+    private final OwnerBookingStreams ownerBookingStreams;
 
     @PostMapping
     public ResponseEntity<BookingResponseDto> create(
@@ -41,6 +66,24 @@ public class BookingController {
         return ResponseEntity.ok(booking);
     }
 
+    // Пакетное создание: каждый элемент обрабатывается независимо, ошибки возвращаются поэлементно
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> createBatch(
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestBody List<BookingRequestDto> bookingRequestDtos) {
+        List<BookingBatchResultDto> results = bookingService.createBatch(bookingRequestDtos, userId);
+        return ResponseEntity.ok(results);
+    }
+
+    @PatchMapping("/approve")
+    public ResponseEntity<List<BookingBatchResultDto>> approveBatch(
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestParam Boolean approved,
+            @RequestBody List<Long> bookingIds) {
+        List<BookingBatchResultDto> results = bookingService.approveBatch(bookingIds, userId, approved);
+        return ResponseEntity.ok(results);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingResponseDto> getById(
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
@@ -54,9 +97,12 @@ public class BookingController {
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        List<BookingResponseDto> bookings = bookingService.getAllByBooker(userId, state, from, size);
-        return ResponseEntity.ok(bookings);
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String after) {
+        List<BookingResponseDto> bookings = after == null
+                ? bookingService.getAllByBooker(userId, state, from, size)
+                : bookingService.getAllByBookerAfter(userId, state, BookingCursor.decode(after), size);
+        return withNextCursor(bookings, size);
     }
 
     @GetMapping("/owner")
@@ -64,8 +110,92 @@ public class BookingController {
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
             @RequestParam(defaultValue = "ALL") BookingState state,
             @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
-            @RequestParam(defaultValue = "10") @Positive Integer size) {
-        List<BookingResponseDto> bookings = bookingService.getAllByOwner(userId, state, from, size);
-        return ResponseEntity.ok(bookings);
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) String after) {
+        List<BookingResponseDto> bookings = after == null
+                ? bookingService.getAllByOwner(userId, state, from, size)
+                : bookingService.getAllByOwnerAfter(userId, state, BookingCursor.decode(after), size);
+        return withNextCursor(bookings, size);
+    }
+
+    // Вся история бронирований владельца для бухгалтерии: CSV или NDJSON, строки пишутся по мере чтения из БД.
+    // Сжатие gzip выполняет контейнер (server.compression) по Accept-Encoding клиента
+    @GetMapping(value = "/owner/export", produces = {CSV, NDJSON})
+    public ResponseEntity<StreamingResponseBody> exportByOwner(
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestParam(defaultValue = "csv") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ValidationException("Неизвестный формат выгрузки: " + format);
+        }
+        // Проверяем пользователя до начала потока, пока ещё можно вернуть 404
+        requestContext.checkUserExists(userId);
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write(CSV_HEADER);
+            }
+            bookingService.exportByOwner(userId, booking -> writeRow(writer, booking, csv));
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? CSV : NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings-" + userId + (csv ? ".csv" : ".ndjson") + "\"")
+                .body(body);
+    }
+
+    // Поток событий по вещам владельца вместо опроса GET /bookings/owner?state=WAITING.
+    // Клиент сначала подписывается, затем один раз читает список - так он не пропустит события между ними.
+    // Поток доставляет только события, опубликованные этим узлом; при нескольких узлах опрос остаётся основным
+    @GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamByOwner(@RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId) {
+        requestContext.checkUserExists(userId);
+        return ownerBookingStreams.open(userId);
+    }
+
+    // Полная страница - отдаём курсор на следующую в заголовке, тело ответа не меняется
+    private ResponseEntity<List<BookingResponseDto>> withNextCursor(List<BookingResponseDto> bookings, int size) {
+        if (bookings.size() < size) {
+            return ResponseEntity.ok(bookings);
+        }
+        String next = BookingCursor.of(bookings.get(bookings.size() - 1)).encode();
+        return ResponseEntity.ok()
+                .header(HeaderConstants.NEXT_CURSOR, next)
+                .body(bookings);
+    }
+
+    private void writeRow(Writer writer, BookingView booking, boolean csv) {
+        try {
+            if (csv) {
+                writer.write(String.join(",",
+                        String.valueOf(booking.id()),
+                        String.valueOf(booking.start()),
+                        String.valueOf(booking.end()),
+                        booking.status().name(),
+                        String.valueOf(booking.itemId()),
+                        csvField(booking.itemName()),
+                        String.valueOf(booking.bookerId()),
+                        csvField(booking.bookerName()),
+                        csvField(booking.bookerEmail())));
+            } else {
+                writer.write(objectMapper.writeValueAsString(booking));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Кавычки по RFC 4180 - только если в значении есть разделитель, кавычка или перевод строки
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
     }
 }
\ No newline at end of file
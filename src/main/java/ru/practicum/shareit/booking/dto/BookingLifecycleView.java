@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// Минимум полей бронирования для планировщика переходов жизненного цикла
+public record BookingLifecycleView(
+        Long id,
+        Long itemId,
+        Long bookerId,
+        LocalDateTime start,
+        LocalDateTime end,
+        BookingStatus status) {
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// Плоская проекция бронирования для списков: собирается конструктором прямо в JPQL,
+// поэтому страница любого размера - один запрос без загрузки сущностей
+public record BookingView(
+        Long id,
+        LocalDateTime start,
+        LocalDateTime end,
+        BookingStatus status,
+        Long bookerId,
+        String bookerName,
+        String bookerEmail,
+        Long itemId,
+        String itemName,
+        String itemDescription,
+        Boolean itemAvailable,
+        Long itemRequestId) {
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.event;
+
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+// Событие жизненного цикла бронирования в том виде, в каком его получают приёмники.
+// id - id строки outbox: при повторной доставке (at-least-once) по нему отбрасываются дубликаты
+public record BookingEvent(Long id,
+                           BookingEventType type,
+                           Long bookingId,
+                           Long itemId,
+                           Long ownerId,
+                           Long bookerId,
+                           LocalDateTime start,
+                           LocalDateTime end,
+                           BookingStatus status,
+                           LocalDateTime occurredAt) {
+}
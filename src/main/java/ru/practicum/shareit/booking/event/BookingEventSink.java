@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.event;
+
+import java.util.List;
+
+// Приёмник событий бронирований. События приходят пакетом в порядке возникновения;
+// исключение откатывает пакет, и OutboxRelay доставит его снова во все приёмники
+public interface BookingEventSink {
+    void publish(List<BookingEvent> events);
+}
@@ -0,0 +1,66 @@
+package ru.practicum.shareit.booking.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Журнал событий в файле (NDJSON, одно событие на строку) для локальной отладки и интеграций.
+// Пакет дописывается и сбрасывается на диск до того, как OutboxRelay удалит его из outbox
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.file-sink.path")
+public class FileBookingEventSink implements BookingEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+
+    public FileBookingEventSink(ObjectMapper objectMapper,
+                                @Value("${shareit.outbox.file-sink.path}") Path path) throws IOException {
+        this.objectMapper = objectMapper;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        log.info("События бронирований пишутся в {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public synchronized void publish(List<BookingEvent> events) {
+        StringBuilder lines = new StringBuilder(events.size() * 256);
+        try {
+            for (BookingEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие бронирования", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Шина событий внутри процесса: подписчики (сбросы кешей, уведомления) получают события
+// из outbox, не опрашивая таблицу бронирований. Ошибка подписчика не мешает остальным и не откатывает пакет
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.memory-sink.enabled", havingValue = "true", matchIfMissing = true)
+public class InMemoryBookingEventBus implements BookingEventSink {
+
+    private final List<Consumer<BookingEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    // Возвращает действие для отписки
+    public Runnable subscribe(Consumer<BookingEvent> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void publish(List<BookingEvent> events) {
+        for (BookingEvent event : events) {
+            for (Consumer<BookingEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    log.error("Подписчик не обработал событие {} бронирования {}: {}",
+                            event.type(), event.bookingId(), e.getMessage());
+                }
+            }
+        }
+    }
+}
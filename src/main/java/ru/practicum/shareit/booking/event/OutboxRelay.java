@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.map.BookingEventMapper;
+import ru.practicum.shareit.booking.model.OutboxEvent;
+import ru.practicum.shareit.booking.repository.OutboxEventRepository;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Ретранслятор outbox: забирает пакет самых старых событий, отдаёт его всем приёмникам по порядку
+// и удаляет строки в той же транзакции. Если приёмник упал, транзакция откатывается и пакет
+// уходит повторно на следующем проходе (at-least-once). Порядок событий одной вещи сохраняется:
+// пакеты идут строго друг за другом, подтверждения вещи пишутся под блокировкой её строки.
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxRepository;
+    private final List<BookingEventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer batchTimer;
+    private final Counter failures;
+
+    private final ExecutorService wakeUps = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       List<BookingEventSink> sinks,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${shareit.outbox.relay.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.meterRegistry = meterRegistry;
+        this.batchTimer = Timer.builder("shareit.outbox.relay.batch")
+                .description("Доставка пакета событий outbox во все приёмники")
+                .register(meterRegistry);
+        this.failures = Counter.builder("shareit.outbox.relay.failures")
+                .description("Пакеты outbox, не доставленные с первой попытки")
+                .register(meterRegistry);
+    }
+
+    // Внеочередной проход сразу после коммита, записавшего события: подписчики узнают об изменении
+    // без ожидания интервала опроса. Пробуждения, пришедшие до начала прохода, схлопываются в один
+    public void wakeUpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeUp();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wakeUps.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay.interval-ms:500}")
+    public synchronized void relay() {
+        try {
+            while (relayBatch() == batchSize) {
+                // полный пакет - в outbox, вероятно, есть ещё события
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Пакет событий outbox не доставлен, повтор на следующем проходе: {}", e.getMessage());
+        }
+    }
+
+    private void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            wakeUps.execute(() -> {
+                wakeUpPending.set(false);
+                relay();
+            });
+        }
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> batch = outboxRepository.lockOldest(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<BookingEvent> events = BookingEventMapper.toBookingEvents(batch);
+            batchTimer.record(() -> sinks.forEach(sink -> sink.publish(events)));
+            outboxRepository.deleteAllByIdInBatch(batch.stream()
+                    .map(OutboxEvent::getId)
+                    .collect(Collectors.toList()));
+
+            events.forEach(event -> meterRegistry.counter("shareit.outbox.published",
+                    "type", event.type().name()).increment());
+            return batch.size();
+        });
+        return relayed != null ? relayed : 0;
+    }
+}
@@ -0,0 +1,193 @@
+package ru.practicum.shareit.booking.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.exception.TooManyStreamsException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// SSE-подписки владельцев на события их бронирований (новые WAITING и смены статуса).
+// События приходят из InMemoryBookingEventBus; у каждой подписки своя ограниченная очередь,
+// которую отправляет виртуальный поток, поэтому медленный клиент не задерживает ретранслятор и других.
+// Переполнение очереди закрывает поток: клиент переподключается и перечитывает GET /bookings/owner.
+// Простаивающие подписки не занимают потоков - только соединение и очередь.
+// Только один узел: строку outbox забирает ретранслятор одного узла и удаляет после публикации,
+// поэтому подписчики на других узлах событие не получат. При нескольких узлах клиенты должны
+// опрашивать GET /bookings/owner (курсор) - поток SSE остаётся лишь ускорением на том же узле.
+@Slf4j
+@Component
+public class OwnerBookingStreams {
+
+    private final ObjectProvider<InMemoryBookingEventBus> eventBus;
+    private final int maxSubscribers;
+    private final int maxPerOwner;
+    private final int queueCapacity;
+    private final long timeoutMs;
+
+    private final Map<Long, Set<Subscription>> subscriptionsByOwner = new ConcurrentHashMap<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private Runnable unsubscribe = () -> { };
+
+    public OwnerBookingStreams(ObjectProvider<InMemoryBookingEventBus> eventBus,
+                               @Value("${shareit.bookings.stream.max-subscribers:20000}") int maxSubscribers,
+                               @Value("${shareit.bookings.stream.max-per-owner:5}") int maxPerOwner,
+                               @Value("${shareit.bookings.stream.queue-capacity:256}") int queueCapacity,
+                               @Value("${shareit.bookings.stream.timeout-ms:1800000}") long timeoutMs) {
+        this.eventBus = eventBus;
+        this.maxSubscribers = maxSubscribers;
+        this.maxPerOwner = maxPerOwner;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        InMemoryBookingEventBus bus = eventBus.getIfAvailable();
+        if (bus == null) {
+            log.warn("Шина событий отключена (shareit.outbox.memory-sink.enabled=false), SSE-потоки не получат событий");
+            return;
+        }
+        unsubscribe = bus.subscribe(this::dispatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        unsubscribe.run();
+        subscriptionsByOwner.values().forEach(subscriptions -> subscriptions.forEach(Subscription::close));
+        senders.shutdownNow();
+    }
+
+    public SseEmitter open(Long ownerId) {
+        if (total.incrementAndGet() > maxSubscribers) {
+            total.decrementAndGet();
+            throw new TooManyStreamsException("Достигнут предел SSE-подписок на узле: " + maxSubscribers);
+        }
+
+        Subscription subscription = new Subscription(ownerId, new SseEmitter(timeoutMs));
+        try {
+            subscriptionsByOwner.compute(ownerId, (id, subscriptions) -> {
+                Set<Subscription> result = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+                if (result.size() >= maxPerOwner) {
+                    throw new TooManyStreamsException("У пользователя " + ownerId + " уже открыто "
+                            + maxPerOwner + " потоков");
+                }
+                result.add(subscription);
+                return result;
+            });
+        } catch (TooManyStreamsException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+
+        SseEmitter emitter = subscription.emitter;
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> remove(subscription));
+        // Первый комментарий сразу отправляет заголовки ответа через прокси
+        subscription.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    // Комментарий-пульс держит соединение открытым через прокси и выявляет отключившихся клиентов
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscriptionsByOwner.values().forEach(subscriptions ->
+                subscriptions.forEach(subscription -> subscription.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    public int size() {
+        return total.get();
+    }
+
+    private void dispatch(BookingEvent event) {
+        Set<Subscription> subscriptions = subscriptionsByOwner.get(event.ownerId());
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(SseEmitter.event()
+                    .id(String.valueOf(event.id()))
+                    .name(event.type().name())
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        boolean[] removed = new boolean[1];
+        subscriptionsByOwner.computeIfPresent(subscription.ownerId, (id, subscriptions) -> {
+            removed[0] = subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+        if (removed[0]) {
+            total.decrementAndGet();
+        }
+    }
+
+    private final class Subscription {
+        private final Long ownerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscription(Long ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!queue.offer(event)) {
+                log.warn("Клиент пользователя {} не успевает читать события, поток закрыт", ownerId);
+                close();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        // Одновременно очередь отправляет не больше одного потока; событие, пришедшее
+        // после опустошения очереди, но до сброса флага, подхватывается повторной проверкой
+        private void send() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder event;
+                    while ((event = queue.poll()) != null) {
+                        emitter.send(event);
+                    }
+                    sending.set(false);
+                } while (!queue.isEmpty() && sending.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // клиент отключился или поток уже завершён
+                sending.set(false);
+                close();
+            }
+        }
+
+        void close() {
+            queue.clear();
+            remove(this);
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // уже завершён
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.map;
+
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BookingEventMapper {
+
+    public static OutboxEvent toOutboxEvent(BookingEventType type, Booking booking) {
+        return OutboxEvent.builder()
+                .type(type)
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .ownerId(booking.getOwnerId())
+                .bookerId(booking.getBooker().getId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .status(booking.getStatus())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    public static BookingEvent toBookingEvent(OutboxEvent event) {
+        return new BookingEvent(
+                event.getId(),
+                event.getType(),
+                event.getBookingId(),
+                event.getItemId(),
+                event.getOwnerId(),
+                event.getBookerId(),
+                event.getStart(),
+                event.getEnd(),
+                event.getStatus(),
+                event.getOccurredAt()
+        );
+    }
+
+    public static List<BookingEvent> toBookingEvents(Collection<OutboxEvent> events) {
+        return events.stream()
+                .map(BookingEventMapper::toBookingEvent)
+                .collect(Collectors.toList());
+    }
+}
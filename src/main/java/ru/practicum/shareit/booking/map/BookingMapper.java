@@ -2,10 +2,13 @@ package ru.practicum.shareit.booking.map;
 
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.map.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.map.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
@@ -25,6 +28,7 @@ public class BookingMapper {
                 .end(dto.getEnd())
                 .item(item)
                 .booker(booker)
+                .ownerId(item.getOwner().getId())
                 .status(BookingStatus.WAITING)
                 .build();
     }
@@ -53,4 +57,39 @@ public class BookingMapper {
                 .map(BookingMapper::toBookingResponseDto)
                 .collect(Collectors.toList());
     }
+
+    public static BookingResponseDto toBookingResponseDto(BookingView view) {
+        if (view == null) {
+            return null;
+        }
+
+        return BookingResponseDto.builder()
+                .id(view.id())
+                .start(view.start())
+                .end(view.end())
+                .status(view.status())
+                .booker(UserDto.builder()
+                        .id(view.bookerId())
+                        .name(view.bookerName())
+                        .email(view.bookerEmail())
+                        .build())
+                .item(ItemDto.builder()
+                        .id(view.itemId())
+                        .name(view.itemName())
+                        .description(view.itemDescription())
+                        .available(view.itemAvailable())
+                        .requestId(view.itemRequestId())
+                        .build())
+                .build();
+    }
+
+    public static List<BookingResponseDto> toBookingResponseDtoListFromViews(Collection<BookingView> views) {
+        if (views == null || views.isEmpty()) {
+            return List.of();
+        }
+
+        return views.stream()
+                .map(BookingMapper::toBookingResponseDto)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -2,21 +2,31 @@ package ru.practicum.shareit.booking.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_booker_start", columnList = "booker_id, start_date DESC, id"),
+        @Index(name = "idx_bookings_item_status_start", columnList = "item_id, status, start_date"),
+        @Index(name = "idx_bookings_owner_start", columnList = "owner_id, start_date DESC, id"),
+        @Index(name = "idx_bookings_owner_status_start", columnList = "owner_id, status, start_date DESC"),
+        @Index(name = "idx_bookings_owner_end", columnList = "owner_id, end_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Booking {
+    // Последовательность вместо IDENTITY: id известен до INSERT, поэтому Hibernate может пакетировать вставки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date", nullable = false)
@@ -27,14 +37,35 @@ public class Booking {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Item item;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User booker;
 
+    // Копия item.owner.id: выборки владельца фильтруют bookings без JOIN с items.
+    // Владелец вещи не меняется (Item.owner не обновляемый), поэтому копия не расходится с оригиналом
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    private Long ownerId;
+
+    // Только для схемы: внешний ключ fk_booking_to_owner с ON DELETE CASCADE, как в schema.sql,
+    // чтобы он был и при ddl-auto. Значение колонки пишется через ownerId
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_booking_to_owner"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private User owner;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
     @Builder.Default
     private BookingStatus status = BookingStatus.WAITING;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingQueryRepository {
+
+    // Страница бронирований пользователя в роли арендатора или владельца, start DESC, id DESC.
+    // Если cursorStart/cursorId заданы - keyset-выборка после курсора, иначе смещение from.
+    List<BookingView> findByRole(BookingRole role, Long userId, BookingState state, LocalDateTime now,
+                                 LocalDateTime cursorStart, Long cursorId, int from, int size);
+}
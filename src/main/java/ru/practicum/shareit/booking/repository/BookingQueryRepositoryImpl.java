@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Единый движок выборки бронирований по (роль, состояние).
+// JPQL для каждой комбинации строится один раз и кешируется: Hibernate кеширует план
+// по тексту запроса, поэтому повторные вызовы не разбирают запрос заново.
+// Результат - проекция BookingView из конструктора в JPQL: один запрос на страницу, без сущностей и N+1.
+// Выборки владельца фильтруют по bookings.owner_id, так что каждое состояние - один диапазон индекса
+// (owner_id, start_date), (owner_id, status, start_date) или (owner_id, end_date).
+@Slf4j
+public class BookingQueryRepositoryImpl implements BookingQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<PlanKey, Plan> plans = new ConcurrentHashMap<>();
+
+    @Override
+    public List<BookingView> findByRole(BookingRole role, Long userId, BookingState state, LocalDateTime now,
+                                        LocalDateTime cursorStart, Long cursorId, int from, int size) {
+        boolean seek = cursorStart != null && cursorId != null;
+        Plan plan = plans.computeIfAbsent(new PlanKey(role, state, seek), BookingQueryRepositoryImpl::buildPlan);
+
+        TypedQuery<BookingView> query = entityManager.createQuery(plan.jpql(), BookingView.class)
+                .setParameter("userId", userId)
+                .setMaxResults(size);
+        if (plan.usesNow()) {
+            query.setParameter("now", now);
+        }
+        if (plan.status() != null) {
+            query.setParameter("status", plan.status());
+        }
+        if (seek) {
+            query.setParameter("cursorStart", cursorStart)
+                    .setParameter("cursorId", cursorId);
+        } else {
+            query.setFirstResult(from / size * size);
+        }
+
+        long startedAt = System.nanoTime();
+        List<BookingView> bookings = query.getResultList();
+        log.debug("Выборка бронирований role={}, state={}, seek={}: {} строк за {} мкс",
+                role, state, seek, bookings.size(), (System.nanoTime() - startedAt) / 1000);
+        return bookings;
+    }
+
+    private static Plan buildPlan(PlanKey key) {
+        StringBuilder jpql = new StringBuilder("SELECT new ru.practicum.shareit.booking.dto.BookingView(")
+                .append("b.id, b.start, b.end, b.status, ")
+                .append("u.id, u.name, u.email, ")
+                .append("i.id, i.name, i.description, i.available, i.request.id) ")
+                .append("FROM Booking b ")
+                .append("JOIN b.item i ")
+                .append("JOIN b.booker u ")
+                .append(key.role() == BookingRole.BOOKER ? "WHERE u.id = :userId " : "WHERE b.ownerId = :userId ");
+
+        boolean usesNow = false;
+        BookingStatus status = null;
+        switch (key.state()) {
+            case ALL -> {
+            }
+            case CURRENT -> {
+                jpql.append("AND b.start < :now AND b.end > :now ");
+                usesNow = true;
+            }
+            case PAST -> {
+                jpql.append("AND b.end < :now ");
+                usesNow = true;
+            }
+            case FUTURE -> {
+                jpql.append("AND b.start > :now ");
+                usesNow = true;
+            }
+            case WAITING -> status = BookingStatus.WAITING;
+            case REJECTED -> status = BookingStatus.REJECTED;
+            default -> throw new IllegalArgumentException("Unknown state: " + key.state());
+        }
+        if (status != null) {
+            jpql.append("AND b.status = :status ");
+        }
+        if (key.seek()) {
+            jpql.append("AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) ");
+        }
+        jpql.append("ORDER BY b.start DESC, b.id DESC");
+
+        return new Plan(jpql.toString(), usesNow, status);
+    }
+
+    private record PlanKey(BookingRole role, BookingState state, boolean seek) {
+    }
+
+    private record Plan(String jpql, boolean usesNow, BookingStatus status) {
+    }
+}
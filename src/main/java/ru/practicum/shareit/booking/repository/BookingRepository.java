@@ -1,24 +1,44 @@
 package ru.practicum.shareit.booking.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingLifecycleView;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingQueryRepository {
 
     @Query("SELECT b FROM Booking b " +
             "JOIN FETCH b.item i " +
             "JOIN FETCH b.booker u " +
-            "WHERE b.id = :bookingId AND (b.booker.id = :userId OR i.owner.id = :userId)")
+            "WHERE b.id = :bookingId AND (b.booker.id = :userId OR b.ownerId = :userId)")
     Optional<Booking> findByIdAndBookerIdOrItemOwnerId(Long bookingId, Long userId);
 
+    @Query("SELECT b FROM Booking b " +
+            "JOIN FETCH b.item i " +
+            "JOIN FETCH b.booker u " +
+            "WHERE b.id = :bookingId")
+    Optional<Booking> findWithItemAndBookerById(Long bookingId);
+
+    @Query("SELECT b FROM Booking b " +
+            "JOIN FETCH b.item i " +
+            "JOIN FETCH b.booker u " +
+            "WHERE b.id IN :bookingIds")
+    List<Booking> findAllWithItemAndBookerByIdIn(Collection<Long> bookingIds);
+
     @Query("SELECT b FROM Booking b " +
             "WHERE b.item.id = :itemId " +
             "AND b.status = 'APPROVED' " +
@@ -33,6 +53,27 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "ORDER BY b.start ASC")
     List<Booking> findNextBookingForItem(Long itemId, LocalDateTime now, Pageable pageable);
 
+    // Ближайший конец ещё не завершённого подтверждённого бронирования
+    @Query("SELECT MIN(b.end) FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.end > :now")
+    LocalDateTime findNearestBookingEndForItem(Long itemId, LocalDateTime now);
+
+    // Меняет статус, только если бронирование всё ещё ожидает решения; возвращает число изменённых строк.
+    // Контекст очищается, чтобы загруженная ранее сущность со старой версией не попала в flush
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status, b.version = b.version + 1 " +
+            "WHERE b.id = :bookingId AND b.status = 'WAITING'")
+    int updateStatusIfWaiting(Long bookingId, BookingStatus status);
+
+    @Query("SELECT COUNT(b) > 0 FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.start < :end " +
+            "AND b.end > :start")
+    boolean existsApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end);
+
     @Query("SELECT COUNT(b) > 0 FROM Booking b " +
             "WHERE b.booker.id = :userId " +
             "AND b.item.id = :itemId " +
@@ -40,27 +81,49 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "AND b.end < :now")
     boolean existsByBookerIdAndItemIdAndEndBefore(Long userId, Long itemId, LocalDateTime now);
 
-    //методы букинга
-    List<Booking> findByBookerId(Long bookerId, Pageable pageable);
-
-    List<Booking> findByBookerIdAndEndBefore(Long bookerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartAfter(Long bookerId, LocalDateTime start, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStartBeforeAndEndAfter(Long bookerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    // Методы для владельца
-    List<Booking> findByItemOwnerId(Long ownerId, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndEndBefore(Long ownerId, LocalDateTime end, Pageable pageable);
-
-    List<Booking> findByItemOwnerIdAndStartAfter(Long ownerId, LocalDateTime start, Pageable pageable);
+    // Вся история бронирований владельца потоком плоских строк: без сущностей и контекста персистентности,
+    // драйвер читает курсором порциями по fetch size
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingView(" +
+            "b.id, b.start, b.end, b.status, " +
+            "u.id, u.name, u.email, " +
+            "i.id, i.name, i.description, i.available, i.request.id) " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker u " +
+            "WHERE b.ownerId = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookingView> streamByOwnerId(Long ownerId);
+
+    // Бронирования, у которых ещё будет переход жизненного цикла: ожидающие решения
+    // и подтверждённые незавершённые. Читается одним проходом курсора при старте планировщика
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingLifecycleView(" +
+            "b.id, b.item.id, b.booker.id, b.start, b.end, b.status) " +
+            "FROM Booking b " +
+            "WHERE b.status = 'WAITING' " +
+            "OR (b.status = 'APPROVED' AND b.end > :now)")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BookingLifecycleView> streamPendingTransitions(LocalDateTime now);
+
+    // Вещи, аренда которых у пользователя завершена, - на них можно оставить отзыв
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.end < :now")
+    List<Long> findCompletedItemIdsByBookerId(Long bookerId, LocalDateTime now);
 
-    List<Booking> findByItemOwnerIdAndStartBeforeAndEndAfter(Long ownerId, LocalDateTime start, LocalDateTime end, Pageable pageable);
+    // Вещи с подтверждёнными бронированиями пользователя - их интервалы исчезают вместе с ним
+    @Query("SELECT DISTINCT b.item.id FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.status = 'APPROVED'")
+    List<Long> findApprovedItemIdsByBookerId(Long bookerId);
 
-    List<Booking> findByItemOwnerIdAndStatus(Long ownerId, BookingStatus status, Pageable pageable);
+    // Ближайший конец незавершённой подтверждённой аренды пользователя
+    @Query("SELECT MIN(b.end) FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.end >= :now")
+    LocalDateTime findNearestBookingEndForBooker(Long bookerId, LocalDateTime now);
 
     // Получение всех бронирований по itemId
     List<Booking> findByItemId(Long itemId);
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.model.OutboxEvent;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Самые старые неотправленные события под блокировкой: второй экземпляр ретранслятора ждёт
+    // коммита первого, поэтому события одной вещи не публикуются параллельно и не переставляются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e ORDER BY e.occurredAt, e.id")
+    List<OutboxEvent> lockOldest(Pageable pageable);
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.booking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Индекс занятости вещей по подтверждённым бронированиям.
+// Для каждой вещи хранит непересекающиеся интервалы [start, end) в epoch-millis,
+// отсортированные по началу, поэтому проверка свободного слота занимает O(log n).
+// Индекс вещи прогревается из BookingRepository при первом обращении.
+// Число вещей в индексе ограничено max-items: вытесненная вещь при следующем обращении загружается заново.
+@Component
+public class BookingAvailabilityIndex {
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, Slots> slotsByItemId;
+
+    public BookingAvailabilityIndex(BookingRepository bookingRepository,
+                                    @Value("${shareit.bookings.availability.max-items:100000}") long maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.slotsByItemId = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .build();
+    }
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return slots(itemId).isFree(toMillis(start), toMillis(end));
+    }
+
+    // Свободные в [start, end) вещи из списка, порядок сохраняется.
+    // Вещи, которых ещё нет в индексе, прогреваются одним запросом на весь список
+    public List<Long> freeAmong(List<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        warm(itemIds);
+        long from = toMillis(start);
+        long to = toMillis(end);
+        return itemIds.stream()
+                .filter(itemId -> slots(itemId).isFree(from, to))
+                .collect(Collectors.toList());
+    }
+
+    // Регистрирует подтверждённое бронирование после успешного коммита транзакции
+    public void addAfterCommit(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        long start = toMillis(booking.getStart());
+        long end = toMillis(booking.getEnd());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            slots(itemId).add(start, end);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                slots(itemId).add(start, end);
+            }
+        });
+    }
+
+    // Бронирования вещей удалены каскадом в БД (удаление пользователя) - их интервалы загрузятся заново
+    public void forgetAfterCommit(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            slotsByItemId.invalidateAll(itemIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                slotsByItemId.invalidateAll(itemIds);
+            }
+        });
+    }
+
+    private Slots slots(Long itemId) {
+        return slotsByItemId.get(itemId, this::load);
+    }
+
+    private void warm(List<Long> itemIds) {
+        List<Long> missing = itemIds.stream()
+                .filter(itemId -> slotsByItemId.getIfPresent(itemId) == null)
+                .distinct()
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Slots> loaded = new HashMap<>();
+        missing.forEach(itemId -> loaded.put(itemId, new Slots()));
+        bookingRepository.findAllByItemIdInAndStatusOrderByStartAsc(missing, BookingStatus.APPROVED)
+                .forEach(b -> loaded.get(b.getItem().getId()).add(toMillis(b.getStart()), toMillis(b.getEnd())));
+        // Если вещь успела загрузиться через slots() (например, при addAfterCommit), оставляем ту версию
+        loaded.forEach(slotsByItemId.asMap()::putIfAbsent);
+    }
+
+    private Slots load(Long itemId) {
+        Slots slots = new Slots();
+        bookingRepository.findAllByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED)
+                .forEach(b -> slots.add(toMillis(b.getStart()), toMillis(b.getEnd())));
+        return slots;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static final class Slots {
+        // start -> end, интервалы не пересекаются: пересекающиеся сливаются при добавлении
+        private final TreeMap<Long, Long> intervals = new TreeMap<>();
+
+        synchronized boolean isFree(long start, long end) {
+            Map.Entry<Long, Long> before = intervals.lowerEntry(end);
+            return before == null || before.getValue() <= start;
+        }
+
+        synchronized void add(long start, long end) {
+            Map.Entry<Long, Long> before = intervals.floorEntry(start);
+            if (before != null && before.getValue() >= start) {
+                start = before.getKey();
+                end = Math.max(end, before.getValue());
+            }
+            Map.Entry<Long, Long> next = intervals.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                intervals.remove(next.getKey());
+                next = intervals.ceilingEntry(start);
+            }
+            intervals.put(start, end);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingLifecycleView;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.InMemoryBookingEventBus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.service.CommentEligibilityCache;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
+import ru.practicum.shareit.util.TimingWheel;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+// Переходы жизненного цикла бронирований по времени на иерархическом колесе таймеров:
+// - ожидающий запрос, не подтверждённый к началу аренды, отменяется (CANCELED);
+// - начало и конец подтверждённой аренды сразу пересчитывают указатели lastBooking/nextBooking вещи,
+//   конец аренды ещё и сбрасывает право арендатора на отзыв.
+// При старте расписание восстанавливается одним потоковым проходом по bookings, дальше пополняется
+// событиями из шины. Действия идемпотентны, поэтому повторная доставка события или таймера безвредна.
+// Фоновый пересчёт ItemBookingPointers.rollForward остаётся страховкой для изменений с других узлов.
+// Подписчик шины выполняется в транзакции ретранслятора, которая держит блокировки outbox: он только
+// ставит таймеры, а уже наступившие переходы выполняет ближайший tick в собственных транзакциях.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.lifecycle.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingLifecycleScheduler {
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int EXPIRE_BATCH_SIZE = 500;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+    private final ItemBookingPointers itemBookingPointers;
+    private final CommentEligibilityCache commentEligibility;
+    private final ObjectProvider<InMemoryBookingEventBus> eventBus;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TimingWheel<Transition> wheel;
+    private final long tickMs;
+    // Переходы из событий шины, срок которых уже наступил
+    private final Queue<Transition> overdue = new ConcurrentLinkedQueue<>();
+
+    private enum Kind {
+        EXPIRE,
+        START,
+        END
+    }
+
+    // attempt - число неудачных попыток выполнить переход
+    private record Transition(Kind kind, Long bookingId, Long itemId, Long bookerId, int attempt) {
+
+        Transition(Kind kind, Long bookingId, Long itemId, Long bookerId) {
+            this(kind, bookingId, itemId, bookerId, 0);
+        }
+
+        Transition nextAttempt() {
+            return new Transition(kind, bookingId, itemId, bookerId, attempt + 1);
+        }
+    }
+
+    public BookingLifecycleScheduler(BookingRepository bookingRepository,
+                                     BookingService bookingService,
+                                     ItemBookingPointers itemBookingPointers,
+                                     CommentEligibilityCache commentEligibility,
+                                     ObjectProvider<InMemoryBookingEventBus> eventBus,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${shareit.bookings.lifecycle.tick-ms:1000}") long tickMs) {
+        this.bookingRepository = bookingRepository;
+        this.bookingService = bookingService;
+        this.itemBookingPointers = itemBookingPointers;
+        this.commentEligibility = commentEligibility;
+        this.eventBus = eventBus;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+        this.tickMs = tickMs;
+
+        Gauge.builder("shareit.bookings.lifecycle.scheduled", this, BookingLifecycleScheduler::scheduled)
+                .description("Запланированные переходы жизненного цикла бронирований")
+                .register(meterRegistry);
+    }
+
+    // Сначала подписка, потом проход по БД: событие, пришедшее во время прохода, просто запланируется дважды
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        eventBus.ifAvailable(bus -> bus.subscribe(this::onEvent));
+
+        List<Transition> due = new ArrayList<>();
+        int[] bookings = new int[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookingLifecycleView> pending =
+                         bookingRepository.streamPendingTransitions(LocalDateTime.now())) {
+                pending.forEach(booking -> {
+                    schedule(booking.id(), booking.itemId(), booking.bookerId(), booking.start(), booking.end(),
+                            booking.status(), due);
+                    bookings[0]++;
+                });
+            }
+        });
+        log.info("Расписание переходов восстановлено: {} бронирований, {} таймеров, {} просрочено",
+                bookings[0], scheduled(), due.size());
+        fire(due);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.lifecycle.tick-ms:1000}")
+    public void tick() {
+        List<Transition> due = new ArrayList<>();
+        Transition transition;
+        while ((transition = overdue.poll()) != null) {
+            due.add(transition);
+        }
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        fire(due);
+    }
+
+    // Ошибка здесь пометила бы транзакцию ретранслятора rollback-only, и outbox встал бы на повторной доставке
+    private void onEvent(BookingEvent event) {
+        List<Transition> due = new ArrayList<>();
+        schedule(event.bookingId(), event.itemId(), event.bookerId(), event.start(), event.end(),
+                event.status(), due);
+        overdue.addAll(due);
+    }
+
+    // Таймеры, срок которых уже наступил, добавляются в due и выполняются вызывающим
+    private void schedule(Long bookingId, Long itemId, Long bookerId, LocalDateTime start, LocalDateTime end,
+                          BookingStatus status, List<Transition> due) {
+        if (status == BookingStatus.WAITING) {
+            add(new Transition(Kind.EXPIRE, bookingId, itemId, bookerId), start, due);
+        } else if (status == BookingStatus.APPROVED) {
+            LocalDateTime now = LocalDateTime.now();
+            if (start.isAfter(now)) {
+                add(new Transition(Kind.START, bookingId, itemId, bookerId), start, due);
+            }
+            add(new Transition(Kind.END, bookingId, itemId, bookerId), end, due);
+        }
+    }
+
+    private void add(Transition transition, LocalDateTime at, List<Transition> due) {
+        boolean added;
+        synchronized (wheel) {
+            added = wheel.add(transition, at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        if (!added) {
+            due.add(transition);
+        }
+    }
+
+    private void fire(List<Transition> due) {
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Transition> expired = new LinkedHashMap<>();
+        Map<Long, List<Transition>> byItemId = new HashMap<>();
+        Set<Long> bookerIds = new HashSet<>();
+        for (Transition transition : due) {
+            switch (transition.kind()) {
+                case EXPIRE -> expired.put(transition.bookingId(), transition);
+                case START -> byItemId.computeIfAbsent(transition.itemId(), id -> new ArrayList<>()).add(transition);
+                case END -> {
+                    byItemId.computeIfAbsent(transition.itemId(), id -> new ArrayList<>()).add(transition);
+                    bookerIds.add(transition.bookerId());
+                }
+            }
+        }
+
+        List<Long> bookingIds = new ArrayList<>(expired.keySet());
+        for (int from = 0; from < bookingIds.size(); from += EXPIRE_BATCH_SIZE) {
+            List<Long> chunk = bookingIds.subList(from, Math.min(from + EXPIRE_BATCH_SIZE, bookingIds.size()));
+            try {
+                int count = bookingService.expireWaiting(chunk);
+                if (count > 0) {
+                    log.info("Отменено просроченных запросов на бронирование: {}", count);
+                }
+            } catch (RuntimeException e) {
+                log.error("Просроченные запросы не отменены ({} шт.), повтор позже: {}", chunk.size(), e.getMessage(), e);
+                chunk.forEach(bookingId -> retry(expired.get(bookingId)));
+            }
+        }
+        byItemId.forEach((itemId, transitions) -> {
+            try {
+                itemBookingPointers.refresh(itemId);
+            } catch (RuntimeException e) {
+                log.error("Указатели бронирований вещи {} не пересчитаны, повтор позже: {}", itemId, e.getMessage());
+                transitions.forEach(this::retry);
+            }
+        });
+        bookerIds.forEach(commentEligibility::invalidateAfterCommit);
+    }
+
+    // Первый повтор - на ближайшем tick, дальше задержка удваивается до MAX_RETRY_DELAY_MS.
+    // Переходы идемпотентны, поэтому повтор уже частично выполненного перехода безвреден
+    private void retry(Transition transition) {
+        Transition next = transition.nextAttempt();
+        if (next.attempt() == 1) {
+            overdue.add(next);
+            return;
+        }
+        long delayMs = Math.min(tickMs << Math.min(next.attempt() - 1, 20), MAX_RETRY_DELAY_MS);
+        boolean added;
+        synchronized (wheel) {
+            added = wheel.add(next, System.currentTimeMillis() + delayMs);
+        }
+        if (!added) {
+            overdue.add(next);
+        }
+    }
+
+    private int scheduled() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
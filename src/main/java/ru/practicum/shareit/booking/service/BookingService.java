@@ -1,19 +1,35 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.BookingState;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingResponseDto create(BookingRequestDto bookingRequestDto, Long userId);
 
     BookingResponseDto approve(Long bookingId, Long userId, Boolean approved);
 
+    List<BookingBatchResultDto> createBatch(List<BookingRequestDto> requests, Long userId);
+
+    List<BookingBatchResultDto> approveBatch(List<Long> bookingIds, Long userId, Boolean approved);
+
     BookingResponseDto getById(Long bookingId, Long userId);
 
     List<BookingResponseDto> getAllByBooker(Long bookerId, BookingState state, int from, int size);
 
     List<BookingResponseDto> getAllByOwner(Long ownerId, BookingState state, int from, int size);
+
+    List<BookingResponseDto> getAllByBookerAfter(Long bookerId, BookingState state, BookingCursor after, int size);
+
+    List<BookingResponseDto> getAllByOwnerAfter(Long ownerId, BookingState state, BookingCursor after, int size);
+
+    void exportByOwner(Long ownerId, Consumer<BookingView> consumer);
+
+    int expireWaiting(Collection<Long> bookingIds);
 }
\ No newline at end of file
@@ -1,35 +1,59 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.event.OutboxRelay;
+import ru.practicum.shareit.booking.map.BookingEventMapper;
 import ru.practicum.shareit.booking.map.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.OutboxEventRepository;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.BookingRole;
 import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.CommentEligibilityCache;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.RequestContext;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("shareit.service")
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
+    private final OutboxEventRepository outboxRepository;
+    private final OutboxRelay outboxRelay;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final ItemBookingPointers itemBookingPointers;
+    private final CommentEligibilityCache commentEligibility;
+    private final RequestContext requestContext;
+
+    @Value("${shareit.bookings.batch.max-size:500}")
+    private int maxBatchSize;
 
     @Override
     @Transactional
@@ -40,29 +64,11 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository.findById(bookingRequestDto.getItemId())
                 .orElseThrow(() -> new NotFoundException("Вещь с ID " + bookingRequestDto.getItemId() + " не найдена"));
 
-        if (!item.getAvailable()) {
-            throw new UnavailableItemException("Вещь с ID " + item.getId() + " недоступна для бронирования");
-        }
-
-        if (item.getOwner().getId().equals(userId)) {
-            throw new AccessDeniedException("Владелец не может бронировать свою вещь");
-        }
-
-        LocalDateTime start = bookingRequestDto.getStart();
-        LocalDateTime end = bookingRequestDto.getEnd();
-
-        if (start.isBefore(LocalDateTime.now())) {
-            throw new ValidationException("Дата начала не может быть в прошлом");
-        }
-        if (end.isBefore(LocalDateTime.now())) {
-            throw new ValidationException("Дата окончания не может быть в прошлом");
-        }
-        if (!end.isAfter(start)) {
-            throw new ValidationException("Дата окончания должна быть позже даты начала");
-        }
+        checkCanBook(item, userId, bookingRequestDto.getStart(), bookingRequestDto.getEnd(), LocalDateTime.now());
 
         Booking booking = BookingMapper.toBooking(bookingRequestDto, item, booker);
         Booking savedBooking = bookingRepository.save(booking);
+        publish(BookingEventType.CREATED, List.of(savedBooking));
 
         return BookingMapper.toBookingResponseDto(savedBooking);
     }
@@ -70,21 +76,165 @@ public class BookingServiceImpl implements BookingService {
     @Override
     @Transactional
     public BookingResponseDto approve(Long bookingId, Long userId, Boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findWithItemAndBookerById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование с ID " + bookingId + " не найдено"));
 
-        if (!booking.getItem().getOwner().getId().equals(userId)) {
-            throw new AccessDeniedException("Только владелец вещи может подтверждать/отклонять бронирование");
+        checkCanApprove(booking, userId, approved);
+
+        Long itemId = booking.getItem().getId();
+        if (approved) {
+            // Подтверждения одной вещи выполняются по очереди под блокировкой строки вещи,
+            // пересечение проверяется по БД: индекс занятости узнаёт о чужих коммитах с задержкой
+            itemRepository.lockAllByIdIn(List.of(itemId));
+            if (bookingRepository.existsApprovedOverlap(itemId, booking.getStart(), booking.getEnd())) {
+                throw new UnavailableItemException("Вещь с ID " + itemId + " уже забронирована на эти даты");
+            }
         }
 
-        if (booking.getStatus() != BookingStatus.WAITING) {
+        // Условный UPDATE: из двух одновременных решений по бронированию применится только первое
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (bookingRepository.updateStatusIfWaiting(bookingId, status) == 0) {
             throw new ValidationException("Бронирование уже обработано");
         }
+        booking.setStatus(status);
+        publish(eventType(approved), List.of(booking));
+
+        if (approved) {
+            availabilityIndex.addAfterCommit(booking);
+            itemBookingPointers.refresh(itemId);
+            commentEligibility.invalidateAfterCommit(booking.getBooker().getId());
+        }
+
+        return BookingMapper.toBookingResponseDto(booking);
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> createBatch(List<BookingRequestDto> requests, Long userId) {
+        checkBatchSize(requests.size());
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
+
+        // Все вещи пакета одним запросом IN
+        Set<Long> itemIds = requests.stream()
+                .map(BookingRequestDto::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        BatchSlots batchSlots = new BatchSlots();
+        List<BookingBatchResultDto> results = new ArrayList<>(requests.size());
+        List<Booking> created = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequestDto request = requests.get(i);
+            try {
+                checkRequest(request);
+                Item item = items.get(request.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Вещь с ID " + request.getItemId() + " не найдена");
+                }
+                checkCanBook(item, userId, request.getStart(), request.getEnd(), now);
+                batchSlots.reserve(item.getId(), request.getStart(), request.getEnd());
+
+                Booking booking = BookingMapper.toBooking(request, item, booker);
+                created.add(booking);
+                results.add(BookingBatchResultDto.builder().index(i).status(HttpStatus.CREATED.value()).build());
+            } catch (NotFoundException | ValidationException | AccessDeniedException | UnavailableItemException e) {
+                results.add(failed(i, e));
+            }
+        }
+
+        // id выдаёт последовательность, INSERT-ы уходят пакетами при коммите
+        List<Booking> savedBookings = bookingRepository.saveAll(created);
+        publish(BookingEventType.CREATED, savedBookings);
+
+        Iterator<Booking> saved = savedBookings.iterator();
+        results.stream()
+                .filter(result -> result.getError() == null)
+                .forEach(result -> result.setBooking(BookingMapper.toBookingResponseDto(saved.next())));
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public List<BookingBatchResultDto> approveBatch(List<Long> bookingIds, Long userId, Boolean approved) {
+        checkBatchSize(bookingIds.size());
+        Map<Long, Booking> bookings = bookingRepository.findAllWithItemAndBookerByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        BatchSlots batchSlots = new BatchSlots();
+        if (approved) {
+            lockAndLoadApprovedSlots(bookings.values(), userId, batchSlots);
+        }
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingIds.size());
+        Set<Long> approvedItemIds = new HashSet<>();
+        List<Booking> decided = new ArrayList<>();
+
+        for (int i = 0; i < bookingIds.size(); i++) {
+            Long bookingId = bookingIds.get(i);
+            try {
+                Booking booking = bookings.get(bookingId);
+                if (booking == null) {
+                    throw new NotFoundException("Бронирование с ID " + bookingId + " не найдено");
+                }
+                checkCanApprove(booking, userId, approved);
+                if (approved) {
+                    batchSlots.check(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                }
+
+                // Условный UPDATE по строке, как в approve: бронирование, решение по которому успели
+                // принять параллельно, получает 409, а остальные элементы пакета применяются
+                BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+                if (bookingRepository.updateStatusIfWaiting(bookingId, status) == 0) {
+                    results.add(BookingBatchResultDto.builder()
+                            .index(i)
+                            .status(HttpStatus.CONFLICT.value())
+                            .error("Бронирование с ID " + bookingId + " уже обработано")
+                            .build());
+                    continue;
+                }
+                booking.setStatus(status);
+                decided.add(booking);
+                if (approved) {
+                    batchSlots.occupy(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                    availabilityIndex.addAfterCommit(booking);
+                    commentEligibility.invalidateAfterCommit(booking.getBooker().getId());
+                    approvedItemIds.add(booking.getItem().getId());
+                }
+                results.add(BookingBatchResultDto.builder()
+                        .index(i)
+                        .status(HttpStatus.OK.value())
+                        .booking(BookingMapper.toBookingResponseDto(booking))
+                        .build());
+            } catch (NotFoundException | ValidationException | AccessDeniedException | UnavailableItemException e) {
+                results.add(failed(i, e));
+            }
+        }
 
-        booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        Booking updatedBooking = bookingRepository.save(booking);
+        publish(eventType(approved), decided);
+        approvedItemIds.forEach(itemBookingPointers::refresh);
+        return results;
+    }
 
-        return BookingMapper.toBookingResponseDto(updatedBooking);
+    // Запросы, по которым владелец не решил до начала аренды, отменяются. Условный UPDATE
+    // не трогает бронирования, решение по которым успели принять параллельно
+    @Override
+    @Transactional
+    public int expireWaiting(Collection<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> expired = new ArrayList<>();
+        for (Booking booking : bookingRepository.findAllWithItemAndBookerByIdIn(bookingIds)) {
+            if (booking.getStatus() == BookingStatus.WAITING && !booking.getStart().isAfter(now)
+                    && bookingRepository.updateStatusIfWaiting(booking.getId(), BookingStatus.CANCELED) > 0) {
+                booking.setStatus(BookingStatus.CANCELED);
+                expired.add(booking);
+            }
+        }
+        publish(BookingEventType.CANCELED, expired);
+        return expired.size();
     }
 
     @Override
@@ -97,71 +247,177 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingResponseDto> getAllByBooker(Long bookerId, BookingState state, int from, int size) {
-        userRepository.findById(bookerId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + bookerId + " не найден"));
+        return findByRole(BookingRole.BOOKER, bookerId, state, null, from, size);
+    }
 
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start"));
-        List<Booking> bookings;
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public List<BookingResponseDto> getAllByOwner(Long ownerId, BookingState state, int from, int size) {
+        return findByRole(BookingRole.OWNER, ownerId, state, null, from, size);
+    }
 
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByBookerId(bookerId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(bookerId, now, now, pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findByBookerIdAndEndBefore(bookerId, now, pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByBookerIdAndStartAfter(bookerId, now, pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByBookerIdAndStatus(bookerId, BookingStatus.REJECTED, pageable);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown state: " + state);
-        }
-
-        return BookingMapper.toBookingResponseDtoList(bookings);
+    @Override
+    public List<BookingResponseDto> getAllByBookerAfter(Long bookerId, BookingState state, BookingCursor after, int size) {
+        return findByRole(BookingRole.BOOKER, bookerId, state, after, 0, size);
     }
 
     @Override
-    public List<BookingResponseDto> getAllByOwner(Long ownerId, BookingState state, int from, int size) {
-        userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + ownerId + " не найден"));
+    public List<BookingResponseDto> getAllByOwnerAfter(Long ownerId, BookingState state, BookingCursor after, int size) {
+        return findByRole(BookingRole.OWNER, ownerId, state, after, 0, size);
+    }
 
-        Pageable pageable = PageRequest.of(from / size, size, Sort.by(Sort.Direction.DESC, "start"));
-        List<Booking> bookings;
-        LocalDateTime now = LocalDateTime.now();
+    @Override
+    public void exportByOwner(Long ownerId, Consumer<BookingView> consumer) {
+        requestContext.checkUserExists(ownerId);
 
-        switch (state) {
-            case ALL:
-                bookings = bookingRepository.findByItemOwnerId(ownerId, pageable);
-                break;
-            case CURRENT:
-                bookings = bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfter(ownerId, now, now, pageable);
-                break;
-            case PAST:
-                bookings = bookingRepository.findByItemOwnerIdAndEndBefore(ownerId, now, pageable);
-                break;
-            case FUTURE:
-                bookings = bookingRepository.findByItemOwnerIdAndStartAfter(ownerId, now, pageable);
-                break;
-            case WAITING:
-                bookings = bookingRepository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable);
-                break;
-            case REJECTED:
-                bookings = bookingRepository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageable);
-                break;
-            default:
-                throw new IllegalArgumentException("Unknown state: " + state);
-        }
-
-        return BookingMapper.toBookingResponseDtoList(bookings);
+        // Поток открыт, пока идёт запись клиенту: медленный клиент тормозит чтение курсора, память не растёт
+        try (Stream<BookingView> bookings = bookingRepository.streamByOwnerId(ownerId)) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    private List<BookingResponseDto> findByRole(BookingRole role, Long userId, BookingState state,
+                                                BookingCursor after, int from, int size) {
+        requestContext.checkUserExists(userId);
+
+        List<BookingView> bookings = bookingRepository.findByRole(role, userId, state, LocalDateTime.now(),
+                after != null ? after.start() : null,
+                after != null ? after.id() : null,
+                from, size);
+
+        return BookingMapper.toBookingResponseDtoListFromViews(bookings);
+    }
+
+    // Блокирует вещи, бронирования которых будут подтверждены (по возрастанию id - без взаимных блокировок),
+    // и заносит в batchSlots уже подтверждённые интервалы этих вещей из БД
+    private void lockAndLoadApprovedSlots(Collection<Booking> bookings, Long userId, BatchSlots batchSlots) {
+        List<Long> itemIds = bookings.stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                .map(Booking::getItem)
+                .filter(item -> item.getOwner().getId().equals(userId))
+                .map(Item::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        if (itemIds.isEmpty()) {
+            return;
+        }
+
+        itemRepository.lockAllByIdIn(itemIds);
+        bookingRepository.findAllByItemIdInAndStatusOrderByStartAsc(itemIds, BookingStatus.APPROVED)
+                .forEach(booking -> batchSlots.occupy(booking.getItem().getId(), booking.getStart(), booking.getEnd()));
+    }
+
+    private void checkCanBook(Item item, Long userId, LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (!item.getAvailable()) {
+            throw new UnavailableItemException("Вещь с ID " + item.getId() + " недоступна для бронирования");
+        }
+
+        if (item.getOwner().getId().equals(userId)) {
+            throw new AccessDeniedException("Владелец не может бронировать свою вещь");
+        }
+
+        if (start.isBefore(now)) {
+            throw new ValidationException("Дата начала не может быть в прошлом");
+        }
+        if (end.isBefore(now)) {
+            throw new ValidationException("Дата окончания не может быть в прошлом");
+        }
+        if (!end.isAfter(start)) {
+            throw new ValidationException("Дата окончания должна быть позже даты начала");
+        }
+
+        if (!availabilityIndex.isFree(item.getId(), start, end)) {
+            throw new UnavailableItemException("Вещь с ID " + item.getId() + " уже забронирована на эти даты");
+        }
+    }
+
+    private void checkCanApprove(Booking booking, Long userId, Boolean approved) {
+        if (!booking.getItem().getOwner().getId().equals(userId)) {
+            throw new AccessDeniedException("Только владелец вещи может подтверждать/отклонять бронирование");
+        }
+
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            throw new ValidationException("Бронирование уже обработано");
+        }
+
+        if (approved && !availabilityIndex.isFree(booking.getItem().getId(), booking.getStart(), booking.getEnd())) {
+            throw new UnavailableItemException("Вещь с ID " + booking.getItem().getId() + " уже забронирована на эти даты");
+        }
+    }
+
+    // События пишутся в outbox в транзакции изменения, ретранслятор будится сразу после коммита
+    private void publish(BookingEventType type, List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        outboxRepository.saveAll(bookings.stream()
+                .map(booking -> BookingEventMapper.toOutboxEvent(type, booking))
+                .collect(Collectors.toList()));
+        outboxRelay.wakeUpAfterCommit();
+    }
+
+    private static BookingEventType eventType(Boolean approved) {
+        return approved ? BookingEventType.APPROVED : BookingEventType.REJECTED;
+    }
+
+    // Элементы пакета не проходят через @Valid, поэтому обязательные поля проверяются здесь
+    private static void checkRequest(BookingRequestDto request) {
+        if (request == null || request.getItemId() == null) {
+            throw new ValidationException("Item ID обязателен");
+        }
+        if (request.getStart() == null) {
+            throw new ValidationException("Дата начала обязательна");
+        }
+        if (request.getEnd() == null) {
+            throw new ValidationException("Дата окончания обязательна");
+        }
+    }
+
+    private void checkBatchSize(int size) {
+        if (size == 0) {
+            throw new ValidationException("Пакет не может быть пустым");
+        }
+        if (size > maxBatchSize) {
+            throw new ValidationException("Размер пакета не может превышать " + maxBatchSize);
+        }
+    }
+
+    // Статус совпадает с тем, что вернул бы GlobalExceptionHandler для одиночного запроса
+    private static BookingBatchResultDto failed(int index, RuntimeException e) {
+        HttpStatus status;
+        if (e instanceof NotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (e instanceof AccessDeniedException) {
+            status = HttpStatus.FORBIDDEN;
+        } else {
+            status = HttpStatus.BAD_REQUEST;
+        }
+        return BookingBatchResultDto.builder()
+                .index(index)
+                .status(status.value())
+                .error(e.getMessage())
+                .build();
+    }
+
+    // Интервалы, уже занятые предыдущими элементами того же пакета (и подтверждённые в БД при подтверждении):
+    // индекс занятости узнает о них только после коммита
+    private static final class BatchSlots {
+        private final Map<Long, List<LocalDateTime[]>> slotsByItemId = new HashMap<>();
+
+        void reserve(Long itemId, LocalDateTime start, LocalDateTime end) {
+            check(itemId, start, end);
+            occupy(itemId, start, end);
+        }
+
+        void check(Long itemId, LocalDateTime start, LocalDateTime end) {
+            for (LocalDateTime[] slot : slotsByItemId.getOrDefault(itemId, List.of())) {
+                if (start.isBefore(slot[1]) && end.isAfter(slot[0])) {
+                    throw new UnavailableItemException("Вещь с ID " + itemId + " уже забронирована на эти даты");
+                }
+            }
+        }
+
+        void occupy(Long itemId, LocalDateTime start, LocalDateTime end) {
+            slotsByItemId.computeIfAbsent(itemId, id -> new ArrayList<>()).add(new LocalDateTime[]{start, end});
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Маршрутизация чтения на реплику (shareit.datasource.replica.enabled=true).
+// Сервисы помечены @Transactional(readOnly = true) на уровне класса: такая транзакция выставляет
+// соединению readOnly, и LazyConnectionDataSourceProxy берёт физическое соединение из readOnly-источника.
+// Этот источник отдаёт реплику, если ReplicaRoutingPolicy не требует основной БД (отставание, недавняя запись).
+// Пишущие транзакции, schema.sql и DDL Hibernate всегда идут в основную БД.
+// Маршрут фиксируется при начале readOnly-транзакции (ReplicaAwareJpaDialect), чтения с реплики
+// не наполняют кеш второго уровня.
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // jdbc-url, username, password и настройки пула Hikari реплики
+    @Bean
+    @ConfigurationProperties("shareit.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    public ReplicaRoutingPolicy replicaRoutingPolicy(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${shareit.datasource.routing.max-lag:5s}") Duration maxLag,
+            @Value("${shareit.datasource.routing.lag-query:}") String lagQuery,
+            @Value("${shareit.datasource.routing.sticky-window:5s}") Duration stickyWindow,
+            @Value("${shareit.datasource.routing.lag-check-interval-ms:1000}") long checkIntervalMs) {
+        return new ReplicaRoutingPolicy(replicaDataSource, maxLag, lagQuery, stickyWindow,
+                Duration.ofMillis(checkIntervalMs));
+    }
+
+    // Диалект задаётся до инициализации фабрики: иначе она возьмёт его из JpaVendorAdapter.
+    // Политика достаётся лениво, чтобы не создавать её (и пул реплики) раньше пост-процессоров.
+    @Bean
+    public static BeanPostProcessor replicaAwareJpaDialectPostProcessor(
+            ObjectProvider<ReplicaRoutingPolicy> policyProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factoryBean) {
+                    factoryBean.setJpaDialect(new ReplicaAwareJpaDialect(policyProvider));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaRoutingPolicy policy) {
+        AbstractRoutingDataSource readOnlyDataSource = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return policy.currentLookupKey();
+            }
+        };
+        readOnlyDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingPolicy.PRIMARY, primaryDataSource,
+                ReplicaRoutingPolicy.REPLICA, replicaDataSource));
+        readOnlyDataSource.setDefaultTargetDataSource(primaryDataSource);
+        readOnlyDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+// Чтение с реплики не должно наполнять общий кеш второго уровня: отстающая реплика положила бы туда
+// старую версию строки, и её увидели бы все, включая только что писавшего пользователя.
+// Маршрут readOnly-транзакции выбирается один раз при её начале, и если это реплика, сессия
+// работает в CacheMode.GET - читает кеш, но не кладёт в него сущности и результаты запросов.
+// По окончании транзакции маршрут и режим кеша восстанавливаются (сессия может жить дольше при open-in-view).
+public class ReplicaAwareJpaDialect extends HibernateJpaDialect {
+
+    private final ObjectProvider<ReplicaRoutingPolicy> policyProvider;
+
+    public ReplicaAwareJpaDialect(ObjectProvider<ReplicaRoutingPolicy> policyProvider) {
+        this.policyProvider = policyProvider;
+    }
+
+    private record ReplicaTransactionData(Object delegate, Boolean previousRoute,
+                                          Session session, CacheMode previousCacheMode) {
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        if (!definition.isReadOnly()) {
+            return super.beginTransaction(entityManager, definition);
+        }
+
+        ReplicaRoutingPolicy policy = policyProvider.getObject();
+        boolean replica = policy.useReplica();
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        Boolean previousRoute = policy.pinRoute(replica);
+        try {
+            if (replica) {
+                session.setCacheMode(CacheMode.GET);
+            }
+            Object delegate = super.beginTransaction(entityManager, definition);
+            return new ReplicaTransactionData(delegate, previousRoute, session, previousCacheMode);
+        } catch (RuntimeException | SQLException e) {
+            session.setCacheMode(previousCacheMode);
+            policy.restoreRoute(previousRoute);
+            throw e;
+        }
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReplicaTransactionData data)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+        try {
+            super.cleanupTransaction(data.delegate());
+        } finally {
+            if (data.session().isOpen()) {
+                data.session().setCacheMode(data.previousCacheMode());
+            }
+            policyProvider.getObject().restoreRoute(data.previousRoute());
+        }
+    }
+}
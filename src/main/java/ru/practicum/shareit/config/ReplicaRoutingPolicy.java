@@ -0,0 +1,144 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.util.HeaderConstants;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Решает, можно ли читать с реплики:
+// - реплика доступна и отстаёт не больше max-lag (проверяется фоновым запросом lag-query, в миллисекундах);
+// - пользователь из X-Sharer-User-Id не писал в последние sticky-window (read-your-writes).
+// Без lag-query отставание считается нулевым, проверяется только доступность реплики.
+// Проверка идёт в собственном потоке: недоступная реплика держит её до connection-timeout,
+// и общий планировщик Spring (один поток) не должен при этом простаивать.
+@Slf4j
+public class ReplicaRoutingPolicy implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final DataSource replicaDataSource;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final Cache<Long, Boolean> recentWriters;
+    // Маршрут текущей readOnly-транзакции, см. ReplicaAwareJpaDialect
+    private final ThreadLocal<Boolean> pinnedReplica = new ThreadLocal<>();
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+
+    // До первой проверки реплике не доверяем: на старте на ней может ещё не быть схемы
+    private volatile boolean replicaUsable;
+
+    public ReplicaRoutingPolicy(DataSource replicaDataSource, Duration maxLag, String lagQuery, Duration stickyWindow,
+                                Duration checkInterval) {
+        this.replicaDataSource = replicaDataSource;
+        this.maxLagMs = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .build();
+        lagChecker.scheduleWithFixedDelay(this::checkReplica, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean useReplica() {
+        if (!replicaUsable) {
+            return false;
+        }
+        Long userId = currentUserId();
+        return userId == null || recentWriters.getIfPresent(userId) == null;
+    }
+
+    // Чтения пользователя идут в основную БД в течение sticky-window после его записи
+    public void markWrite(Long userId) {
+        recentWriters.put(userId, Boolean.TRUE);
+    }
+
+    // Фиксирует маршрут на всю readOnly-транзакцию, чтобы режим кеша сессии совпадал с источником соединения.
+    // Возвращает прежнее значение для restoreRoute (вложенные REQUIRES_NEW).
+    Boolean pinRoute(boolean replica) {
+        Boolean previous = pinnedReplica.get();
+        pinnedReplica.set(replica);
+        return previous;
+    }
+
+    void restoreRoute(Boolean previous) {
+        if (previous == null) {
+            pinnedReplica.remove();
+        } else {
+            pinnedReplica.set(previous);
+        }
+    }
+
+    Object currentLookupKey() {
+        Boolean pinned = pinnedReplica.get();
+        boolean replica = pinned != null ? pinned : useReplica();
+        return replica ? REPLICA : PRIMARY;
+    }
+
+    void checkReplica() {
+        try (Connection connection = replicaDataSource.getConnection()) {
+            long lagMs = lag(connection);
+            updateUsable(lagMs <= maxLagMs, "отставание " + lagMs + " мс");
+        } catch (SQLException | RuntimeException e) {
+            // исключение из задачи scheduleWithFixedDelay отменило бы все следующие проверки
+            updateUsable(false, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+    }
+
+    private long lag(Connection connection) throws SQLException {
+        if (lagQuery == null || lagQuery.isBlank()) {
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void updateUsable(boolean usable, String reason) {
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Чтение снова идёт с реплики");
+            } else {
+                log.warn("Реплика исключена из чтения: {}", reason);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    private static Long currentUserId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        String header = request.getHeader(HeaderConstants.SHARER_USER_ID);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.util.HeaderConstants;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Отмечает пользователя, отправившего изменяющий запрос: до конца запроса и ещё sticky-window после него
+// его чтения обслуживает основная БД, поэтому он сразу видит свои изменения
+@Component
+@ConditionalOnProperty(name = "shareit.datasource.replica.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReplicaStickinessFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaRoutingPolicy policy;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long writer = SAFE_METHODS.contains(request.getMethod()) ? null : userId(request);
+        if (writer != null) {
+            policy.markWrite(writer);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (writer != null) {
+                policy.markWrite(writer);
+            }
+        }
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        String header = request.getHeader(HeaderConstants.SHARER_USER_ID);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
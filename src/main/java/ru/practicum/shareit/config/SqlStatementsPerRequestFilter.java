@@ -0,0 +1,66 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Число SQL-выражений на HTTP-запрос: гистограмма shareit.http.sql.statements по шаблону URI
+// и предупреждение в лог, если запрос выполнил больше порога - типичный признак N+1.
+// Запросы, выполненные после выхода из фильтра (потоковые ответы), не учитываются.
+@Slf4j
+@Component
+public class SqlStatementsPerRequestFilter extends OncePerRequestFilter {
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final int threshold;
+
+    public SqlStatementsPerRequestFilter(
+            SqlStatementCounter counter,
+            MeterRegistry meterRegistry,
+            @Value("${shareit.sql.n-plus-one-threshold:20}") int threshold) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int statements = counter.stop();
+            String uri = uriTemplate(request);
+
+            DistributionSummary.builder("shareit.http.sql.statements")
+                    .description("SQL-выражений на HTTP-запрос")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+
+            if (statements > threshold) {
+                log.warn("Возможный N+1: {} {} выполнил {} SQL-выражений (порог {})",
+                        request.getMethod(), request.getRequestURI(), statements, threshold);
+            }
+        }
+    }
+
+    // Шаблон (/bookings/{bookingId}), а не сам URI - иначе число тегов неограниченно
+    private static String uriTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -1,15 +1,27 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.util.HeaderConstants;
+import ru.practicum.shareit.util.RequestContext;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,7 +30,14 @@ import java.util.List;
 @Validated
 public class ItemController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+    private final RequestContext requestContext;
+
+    @Value("${shareit.pagination.max-size:100}")
+    private int maxPageSize;
 
     @PostMapping
     public ResponseEntity<ItemDto> create(
@@ -49,15 +68,53 @@ public class ItemController {
 
     @GetMapping
     public ResponseEntity<List<ItemWithBookingsDto>> getAll(
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size,
+            @RequestParam(required = false) Long after) {
+        int pageSize = pageSize(size);
+        List<ItemWithBookingsDto> items = after == null
+                ? itemService.getItemsOfUser(userId, from, pageSize)
+                : itemService.getItemsOfUserAfter(userId, after, pageSize);
+
+        if (items.size() < pageSize) {
+            return ResponseEntity.ok(items);
+        }
+        return ResponseEntity.ok()
+                .header(HeaderConstants.NEXT_CURSOR, String.valueOf(items.get(items.size() - 1).getId()))
+                .body(items);
+    }
+
+    // Все вещи владельца построчно в NDJSON, без накопления результата в памяти
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export(
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId) {
-        List<ItemWithBookingsDto> items = itemService.getItemsOfUser(userId);
-        return ResponseEntity.ok(items);
+        // Проверяем пользователя до начала потока, пока ещё можно вернуть 404
+        requestContext.checkUserExists(userId);
+        StreamingResponseBody body = out -> itemService.exportItemsOfUser(userId, item -> writeLine(out, item));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ItemDto>> search(
-            @RequestParam(value = "text", required = false) String text) {
-        List<ItemDto> items = itemService.search(text);
+            @RequestParam(value = "text", required = false) String text,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size) {
+        List<ItemDto> items = itemService.search(text, from, pageSize(size));
+        return ResponseEntity.ok(items);
+    }
+
+    // Доступные вещи, свободные на всём интервале [start, end); text необязателен
+    @GetMapping("/available")
+    public ResponseEntity<List<ItemDto>> findAvailable(
+            @RequestParam(value = "text", required = false) String text,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size) {
+        List<ItemDto> items = itemService.findAvailable(text, start, end, from, pageSize(size));
         return ResponseEntity.ok(items);
     }
 
@@ -66,7 +123,22 @@ public class ItemController {
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
             @PathVariable Long itemId,
             @Valid @RequestBody CommentRequestDto commentRequestDto) {
-        CommentResponseDto comment = itemService.addComment(itemId, userId, commentRequestDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(comment);
+        CommentWriteResult result = itemService.addComment(itemId, userId, commentRequestDto);
+        // Отзыв в очереди записи (id уже назначен) - 202; записан сразу, в том числе при заполненной очереди - 201
+        HttpStatus status = result.queued() ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(result.comment());
+    }
+
+    private int pageSize(int size) {
+        return Math.min(size, maxPageSize);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
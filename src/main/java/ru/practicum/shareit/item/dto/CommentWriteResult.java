@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+// Итог записи отзыва: queued - отзыв принят в очередь и будет вставлен позже, иначе он уже в БД
+public record CommentWriteResult(CommentResponseDto comment, boolean queued) {
+
+    public static CommentWriteResult written(CommentResponseDto comment) {
+        return new CommentWriteResult(comment, false);
+    }
+
+    public static CommentWriteResult queued(CommentResponseDto comment) {
+        return new CommentWriteResult(comment, true);
+    }
+}
@@ -2,11 +2,23 @@ package ru.practicum.shareit.item.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.LocalDateTime;
+
 @Entity
-@Table(name = "items")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.item")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_owner", columnList = "owner_id"),
+        @Index(name = "idx_items_request", columnList = "request_id"),
+        @Index(name = "idx_items_booking_pointers_expire_at", columnList = "booking_pointers_expire_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,7 +26,8 @@ import ru.practicum.shareit.user.model.User;
 @Builder
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false, length = 255)
@@ -27,10 +40,27 @@ public class Item {
     private Boolean available;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "owner_id", nullable = false)
+    @JoinColumn(name = "owner_id", nullable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User owner;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
     private ItemRequest request;
+
+    // Денормализованные последнее/ближайшее подтверждённые бронирования, см. ItemBookingPointers
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Booking lastBooking;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private Booking nextBooking;
+
+    // Момент, когда указатели устареют: начало ближайшего или конец текущего бронирования
+    @Column(name = "booking_pointers_expire_at")
+    private LocalDateTime bookingPointersExpireAt;
 }
\ No newline at end of file
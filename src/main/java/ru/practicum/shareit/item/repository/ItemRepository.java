@@ -1,17 +1,95 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByOwnerId(Long ownerId);
 
+    @Query("SELECT i.id FROM Item i WHERE i.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(Long ownerId);
+
+    @Query("SELECT i.id FROM Item i WHERE i.request.id IN :requestIds")
+    List<Long> findIdsByRequestIdIn(Collection<Long> requestIds);
+
+    // SELECT ... FOR UPDATE: сериализует подтверждение бронирований одной вещи между узлами
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Item i WHERE i.id IN :itemIds ORDER BY i.id")
+    List<Item> lockAllByIdIn(Collection<Long> itemIds);
+
+    @Query("SELECT i FROM Item i " +
+            "LEFT JOIN FETCH i.lastBooking " +
+            "LEFT JOIN FETCH i.nextBooking " +
+            "WHERE i.id = :itemId")
+    Optional<Item> findWithBookingPointersById(Long itemId);
+
+    @Query("SELECT i FROM Item i " +
+            "LEFT JOIN FETCH i.lastBooking " +
+            "LEFT JOIN FETCH i.nextBooking " +
+            "WHERE i.owner.id = :ownerId " +
+            "ORDER BY i.id")
+    List<Item> findWithBookingPointersByOwnerId(Long ownerId, Pageable pageable);
+
+    // Keyset-пагинация вещей владельца по id
+    @Query("SELECT i FROM Item i " +
+            "LEFT JOIN FETCH i.lastBooking " +
+            "LEFT JOIN FETCH i.nextBooking " +
+            "WHERE i.owner.id = :ownerId AND i.id > :afterId " +
+            "ORDER BY i.id")
+    List<Item> findWithBookingPointersByOwnerIdAfter(Long ownerId, Long afterId, Pageable pageable);
+
+    // Потоковая выгрузка без загрузки сущностей в контекст персистентности
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "FROM Item i " +
+            "WHERE i.owner.id = :ownerId " +
+            "ORDER BY i.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemDto> streamByOwnerId(Long ownerId);
+
+    // Ответы на запросы вещей: одним запросом для всей страницы запросов, группировка - в памяти
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, i.request.id) " +
+            "FROM Item i " +
+            "WHERE i.request.id IN :requestIds " +
+            "ORDER BY i.id")
+    List<ItemDto> findByRequestIdIn(Collection<Long> requestIds);
+
+    // Keyset по id: вещь, указатели которой снова истекли к now, не попадёт в тот же проход повторно
+    @Query("SELECT i.id FROM Item i " +
+            "WHERE i.bookingPointersExpireAt <= :now " +
+            "AND i.id > :afterId " +
+            "ORDER BY i.id")
+    List<Long> findIdsWithExpiredBookingPointers(LocalDateTime now, Long afterId, Pageable pageable);
+
     @Query("SELECT i FROM Item i " +
             "WHERE i.available = true " +
             "AND (LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) " +
-            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%')))")
-    List<Item> searchAvailableByText(String text);
+            "OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%'))) " +
+            "ORDER BY CASE WHEN LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) THEN 0 ELSE 1 END, i.id")
+    List<Item> searchAvailableByText(String text, Pageable pageable);
+
+    // Доступные вещи без подтверждённых бронирований, пересекающих [start, end): анти-join в БД
+    // по idx_bookings_item_status_start вместо перебора каталога
+    @Query("SELECT i FROM Item i " +
+            "WHERE i.available = true " +
+            "AND NOT EXISTS (SELECT b.id FROM Booking b " +
+            "WHERE b.item = i " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.start < :end " +
+            "AND b.end > :start) " +
+            "ORDER BY i.id")
+    List<Item> findAvailableBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
 }
\ No newline at end of file
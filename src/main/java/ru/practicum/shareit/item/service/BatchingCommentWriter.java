@@ -0,0 +1,166 @@
+package ru.practicum.shareit.item.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.CommentWriteResult;
+import ru.practicum.shareit.item.map.CommentMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.repository.CommentRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Асинхронная запись отзывов: отзыв получает id сразу, попадает в ограниченную очередь
+// и вставляется пакетом JDBC фоновой задачей. Если очередь заполнена, отзыв пишется синхронно.
+// id берутся из comments_seq блоками по ALLOCATION_SIZE - так же, как их раздаёт Hibernate (pooled-lo).
+// Отзыв, не записанный из-за сбоя БД, повторяется на следующих сбросах до max-attempts раз.
+// Нарушение ссылочной целостности не повторяется: вещь или автор удалены, и каскад БД удалил бы отзыв.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.comments.write-mode", havingValue = "async")
+public class BatchingCommentWriter implements CommentWriter {
+
+    private static final String SEQUENCE = "comments_seq";
+    // Совпадает с allocationSize у Comment
+    private static final int ALLOCATION_SIZE = 50;
+    private static final String INSERT_SQL =
+            "INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CommentRepository commentRepository;
+    private final String nextValSql;
+    private final BlockingQueue<PendingComment> queue;
+    // Отзывы, не записанные при предыдущих сбросах
+    private final Queue<PendingComment> retries = new ConcurrentLinkedQueue<>();
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private long nextId;
+    private long idLimit;
+
+    public BatchingCommentWriter(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 CommentRepository commentRepository,
+                                 EntityManagerFactory entityManagerFactory,
+                                 @Value("${shareit.comments.async.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${shareit.comments.async.batch-size:500}") int batchSize,
+                                 @Value("${shareit.comments.async.max-attempts:5}") int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.commentRepository = commentRepository;
+        this.nextValSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    private record PendingComment(long id, String text, long itemId, long authorId, LocalDateTime created,
+                                  int attempt) {
+
+        PendingComment nextAttempt() {
+            return new PendingComment(id, text, itemId, authorId, created, attempt + 1);
+        }
+    }
+
+    @Override
+    public CommentWriteResult write(Comment comment) {
+        PendingComment pending = new PendingComment(nextId(), comment.getText(), comment.getItem().getId(),
+                comment.getAuthor().getId(), comment.getCreated(), 1);
+        if (!queue.offer(pending)) {
+            log.warn("Очередь отзывов заполнена ({}), отзыв записывается синхронно", queue.size());
+            return CommentWriteResult.written(CommentMapper.toCommentResponseDto(commentRepository.save(comment)));
+        }
+
+        comment.setId(pending.id());
+        return CommentWriteResult.queued(CommentMapper.toCommentResponseDto(comment));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.comments.async.flush-interval-ms:200}")
+    public void flush() {
+        List<PendingComment> retrying = new ArrayList<>();
+        PendingComment retry;
+        while ((retry = retries.poll()) != null) {
+            retrying.add(retry);
+        }
+        for (int from = 0; from < retrying.size(); from += batchSize) {
+            insert(retrying.subList(from, Math.min(from + batchSize, retrying.size())));
+        }
+
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            insert(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!retries.isEmpty()) {
+            log.error("При остановке не записано отзывов: {}", retries.size());
+        }
+    }
+
+    private void insert(List<PendingComment> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, comment) -> {
+                        ps.setLong(1, comment.id());
+                        ps.setString(2, comment.text());
+                        ps.setLong(3, comment.itemId());
+                        ps.setLong(4, comment.authorId());
+                        ps.setTimestamp(5, Timestamp.valueOf(comment.created()));
+                    }));
+            log.debug("Записано отзывов: {}", batch.size());
+        } catch (DataAccessException e) {
+            // Например, вещь или автор удалены, пока отзыв ждал в очереди: пишем по одному, пропуская такие
+            log.warn("Пакет из {} отзывов не записан ({}), запись по одному", batch.size(), e.getMessage());
+            batch.forEach(this::insertOne);
+        }
+    }
+
+    private void insertOne(PendingComment comment) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, comment.id(), comment.text(), comment.itemId(), comment.authorId(),
+                    Timestamp.valueOf(comment.created()));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Отзыв {} отброшен: вещь {} или автор {} удалены ({})",
+                    comment.id(), comment.itemId(), comment.authorId(), e.getMessage());
+        } catch (DataAccessException e) {
+            if (comment.attempt() >= maxAttempts) {
+                log.error("Отзыв {} не записан за {} попыток: {}", comment.id(), comment.attempt(), e.getMessage());
+                return;
+            }
+            log.warn("Отзыв {} не записан (попытка {}), повтор при следующем сбросе: {}",
+                    comment.id(), comment.attempt(), e.getMessage());
+            retries.add(comment.nextAttempt());
+        }
+    }
+
+    private synchronized long nextId() {
+        if (nextId == idLimit) {
+            nextId = jdbcTemplate.queryForObject(nextValSql, Long.class);
+            idLimit = nextId + ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+}
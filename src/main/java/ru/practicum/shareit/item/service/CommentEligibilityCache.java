@@ -0,0 +1,71 @@
+package ru.practicum.shareit.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Право оставить отзыв: множество вещей, аренда которых у пользователя завершена.
+// Запись пользователя действительна до конца его ближайшей незавершённой подтверждённой аренды -
+// тогда множество может вырасти, и оно перечитывается. Новые подтверждения сбрасывают запись арендатора.
+@Component
+public class CommentEligibilityCache {
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, Eligibility> eligibilityByUserId;
+
+    public CommentEligibilityCache(BookingRepository bookingRepository,
+                                   @Value("${shareit.comments.eligibility.max-users:100000}") long maxUsers,
+                                   @Value("${shareit.comments.eligibility.ttl:10m}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        // ttl - страховка на случай пропущенной инвалидации (например, правки БД в обход сервиса)
+        this.eligibilityByUserId = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    private record Eligibility(Set<Long> completedItemIds, LocalDateTime validUntil) {
+        boolean isValidAt(LocalDateTime now) {
+            return validUntil == null || validUntil.isAfter(now);
+        }
+    }
+
+    public boolean canComment(Long userId, Long itemId, LocalDateTime now) {
+        // get с загрузчиком атомарен относительно invalidate: сброс, пришедший во время загрузки,
+        // дождётся её и удалит запись, а не будет перезаписан устаревшим значением
+        Eligibility eligibility = eligibilityByUserId.get(userId, id -> load(id, now));
+        if (!eligibility.isValidAt(now)) {
+            // удаляем только ту запись, которую прочитали: свежую от соседнего потока не трогаем
+            eligibilityByUserId.asMap().remove(userId, eligibility);
+            eligibility = eligibilityByUserId.get(userId, id -> load(id, now));
+        }
+        return eligibility.completedItemIds().contains(itemId);
+    }
+
+    // Вызывается при подтверждении бронирования: его конец может наступить раньше validUntil
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eligibilityByUserId.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eligibilityByUserId.invalidate(userId);
+            }
+        });
+    }
+
+    private Eligibility load(Long userId, LocalDateTime now) {
+        Set<Long> completed = Set.copyOf(bookingRepository.findCompletedItemIdsByBookerId(userId, now));
+        return new Eligibility(completed, bookingRepository.findNearestBookingEndForBooker(userId, now));
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.CommentWriteResult;
+import ru.practicum.shareit.item.model.Comment;
+
+// Запись проверенного отзыва. Реализация выбирается свойством shareit.comments.write-mode.
+public interface CommentWriter {
+
+    CommentWriteResult write(Comment comment);
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.CommentWriteResult;
+import ru.practicum.shareit.item.map.CommentMapper;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.repository.CommentRepository;
+
+// Синхронная запись в транзакции addComment
+@Component
+@ConditionalOnProperty(name = "shareit.comments.write-mode", havingValue = "sync", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseCommentWriter implements CommentWriter {
+
+    private final CommentRepository commentRepository;
+
+    @Override
+    public CommentWriteResult write(Comment comment) {
+        return CommentWriteResult.written(CommentMapper.toCommentResponseDto(commentRepository.save(comment)));
+    }
+}
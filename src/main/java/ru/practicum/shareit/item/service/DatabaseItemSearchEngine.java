@@ -0,0 +1,36 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+// Поиск средствами БД. На PostgreSQL LIKE '%text%' обслуживается триграммными
+// GIN-индексами из search-postgresql.sql, поэтому не требует полного сканирования items.
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DatabaseItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        return itemRepository.searchAvailableByText(text, PageRequest.of(from / size, size));
+    }
+
+    @Override
+    public void index(Item item) {
+        // Индексы поддерживает сама БД
+    }
+
+    @Override
+    public void remove(Collection<Long> itemIds) {
+        // Индексы поддерживает сама БД
+    }
+}
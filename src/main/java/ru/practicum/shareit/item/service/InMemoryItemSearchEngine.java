@@ -0,0 +1,195 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Встроенный поисковый индекс: инвертированный индекс триграмм названия и описания.
+// Кандидаты - пересечение списков вещей по триграммам запроса, затем точная проверка подстроки,
+// поэтому семантика совпадает с LIKE '%text%'. Индекс строится при старте и обновляется
+// после коммита addItem/updateItem и удаления владельца.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    private record Document(String name, String description, boolean available) {
+        boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Item> items = itemRepository.findAll();
+        items.forEach(this::put);
+        log.info("Поисковый индекс построен: {} вещей, {} триграмм", documents.size(), postings.size());
+    }
+
+    @Override
+    public void index(Item item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(item);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(item);
+            }
+        });
+    }
+
+    @Override
+    public void remove(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete(itemIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete(itemIds);
+            }
+        });
+    }
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        String query = normalize(text);
+        List<Long> ranked;
+
+        lock.readLock().lock();
+        try {
+            Collection<Long> candidates = candidates(query);
+            ranked = candidates.stream()
+                    .filter(id -> documents.get(id).matches(query))
+                    .sorted(Comparator.<Long>comparingInt(id -> documents.get(id).name().contains(query) ? 0 : 1)
+                            .thenComparing(Comparator.naturalOrder()))
+                    .skip(from / size * size)
+                    .limit(size)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Item> itemsById = itemRepository.findAllById(ranked).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ranked.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Collection<Long> candidates(String query) {
+        if (query.length() < GRAM) {
+            return documents.keySet();
+        }
+
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void put(Item item) {
+        Document document = new Document(normalize(item.getName()), normalize(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable()));
+
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(item.getId(), document);
+            if (previous != null) {
+                unlink(item.getId(), previous);
+            }
+            for (String gram : grams(document)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(item.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void delete(Collection<Long> itemIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long itemId : itemIds) {
+                Document previous = documents.remove(itemId);
+                if (previous != null) {
+                    unlink(itemId, previous);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unlink(Long itemId, Document document) {
+        for (String gram : grams(document)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(Document document) {
+        Set<String> grams = grams(document.name());
+        grams.addAll(grams(document.description()));
+        return grams;
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
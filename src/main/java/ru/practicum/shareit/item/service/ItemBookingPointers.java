@@ -0,0 +1,108 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Поддерживает денормализованные lastBooking/nextBooking у вещи.
+// Указатели пересчитываются при подтверждении бронирования и фоновой задачей,
+// когда наступает bookingPointersExpireAt (начинается ближайшее или заканчивается текущее бронирование).
+// Фоновый проход разбирает все устаревшие вещи страницами, каждая страница - в своей транзакции.
+@Slf4j
+@Component
+public class ItemBookingPointers {
+
+    private static final int ROLL_FORWARD_BATCH_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ItemBookingPointers(ItemRepository itemRepository,
+                               BookingRepository bookingRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Pointers(Booking lastBooking, Booking nextBooking, LocalDateTime expireAt) {
+    }
+
+    // Указатели для чтения: сохранённые, если ещё не устарели, иначе вычисленные на лету
+    public Pointers actual(Item item, LocalDateTime now) {
+        LocalDateTime expireAt = item.getBookingPointersExpireAt();
+        if (expireAt == null || expireAt.isAfter(now)) {
+            return new Pointers(item.getLastBooking(), item.getNextBooking(), expireAt);
+        }
+        return compute(item.getId(), now);
+    }
+
+    @Transactional
+    public void refresh(Long itemId) {
+        itemRepository.findById(itemId).ifPresent(item -> apply(item, compute(itemId, LocalDateTime.now())));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.booking-pointers.refresh-interval-ms:60000}")
+    public void rollForward() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        int total = 0;
+        List<Long> itemIds;
+        do {
+            long from = afterId;
+            itemIds = transactionTemplate.execute(status -> rollForwardPage(now, from));
+            if (itemIds.isEmpty()) {
+                break;
+            }
+            afterId = itemIds.get(itemIds.size() - 1);
+            total += itemIds.size();
+        } while (itemIds.size() == ROLL_FORWARD_BATCH_SIZE);
+
+        if (total > 0) {
+            log.debug("Пересчитаны указатели бронирований для {} вещей", total);
+        }
+    }
+
+    private List<Long> rollForwardPage(LocalDateTime now, long afterId) {
+        List<Long> itemIds = itemRepository.findIdsWithExpiredBookingPointers(now, afterId,
+                PageRequest.of(0, ROLL_FORWARD_BATCH_SIZE));
+        if (!itemIds.isEmpty()) {
+            itemRepository.findAllById(itemIds).forEach(item -> apply(item, compute(item.getId(), now)));
+        }
+        return itemIds;
+    }
+
+    private Pointers compute(Long itemId, LocalDateTime now) {
+        Booking last = first(bookingRepository.findLastBookingForItem(itemId, now, PageRequest.of(0, 1)));
+        Booking next = first(bookingRepository.findNextBookingForItem(itemId, now, PageRequest.of(0, 1)));
+        LocalDateTime nearestEnd = bookingRepository.findNearestBookingEndForItem(itemId, now);
+
+        LocalDateTime expireAt = nearestEnd;
+        if (next != null && (expireAt == null || next.getStart().isBefore(expireAt))) {
+            expireAt = next.getStart();
+        }
+        return new Pointers(last, next, expireAt);
+    }
+
+    private static void apply(Item item, Pointers pointers) {
+        item.setLastBooking(pointers.lastBooking());
+        item.setNextBooking(pointers.nextBooking());
+        item.setBookingPointersExpireAt(pointers.expireAt());
+    }
+
+    private static Booking first(List<Booking> bookings) {
+        return bookings.isEmpty() ? null : bookings.get(0);
+    }
+}
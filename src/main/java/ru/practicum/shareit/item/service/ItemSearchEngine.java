@@ -0,0 +1,19 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+
+// Поиск доступных вещей по подстроке в названии или описании.
+// Результаты ранжированы: сначала совпадения в названии, затем по id.
+public interface ItemSearchEngine {
+
+    List<Item> search(String text, int from, int size);
+
+    // Вызывается после создания или изменения вещи
+    void index(Item item);
+
+    // Вызывается при удалении вещей (каскадом вместе с владельцем), действует после коммита
+    void remove(Collection<Long> itemIds);
+}
@@ -2,7 +2,9 @@ package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto addItem(ItemCreateDto dto, Long ownerId);
@@ -11,9 +13,15 @@ public interface ItemService {
 
     ItemWithBookingsDto getItem(Long itemId, Long userId);
 
-    List<ItemWithBookingsDto> getItemsOfUser(Long userId);
+    List<ItemWithBookingsDto> getItemsOfUser(Long userId, int from, int size);
 
-    List<ItemDto> search(String text);
+    List<ItemWithBookingsDto> getItemsOfUserAfter(Long userId, Long afterItemId, int size);
 
-    CommentResponseDto addComment(Long itemId, Long userId, CommentRequestDto commentRequestDto);
+    void exportItemsOfUser(Long userId, Consumer<ItemDto> consumer);
+
+    List<ItemDto> search(String text, int from, int size);
+
+    List<ItemDto> findAvailable(String text, LocalDateTime start, LocalDateTime end, int from, int size);
+
+    CommentWriteResult addComment(Long itemId, Long userId, CommentRequestDto commentRequestDto);
 }
\ No newline at end of file
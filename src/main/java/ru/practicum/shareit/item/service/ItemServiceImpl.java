@@ -1,11 +1,13 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.model.BookingStatus;
-import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
 import ru.practicum.shareit.exception.*;
 import ru.practicum.shareit.item.map.CommentMapper;
 import ru.practicum.shareit.item.repository.CommentRepository;
@@ -18,21 +20,36 @@ import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.RequestContext;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("shareit.service")
 public class ItemServiceImpl implements ItemService {
 
+    private static final int AVAILABILITY_SCAN_CHUNK = 500;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
-    private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository requestRepository;
+    private final ItemBookingPointers bookingPointers;
+    private final ItemSearchEngine searchEngine;
+    private final RequestContext requestContext;
+    private final CommentEligibilityCache commentEligibility;
+    private final CommentWriter commentWriter;
+    private final BookingAvailabilityIndex availabilityIndex;
+
+    // Сколько кандидатов текстового поиска проверяется на свободность за один запрос
+    @Value("${shareit.items.available.max-scan:5000}")
+    private int maxScan;
 
     @Override
     @Transactional
@@ -54,6 +71,7 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item saved = itemRepository.save(item);
+        searchEngine.index(saved);
         return ItemMapper.toItemDto(saved);
     }
 
@@ -80,48 +98,22 @@ public class ItemServiceImpl implements ItemService {
         }
 
         Item saved = itemRepository.save(item);
+        searchEngine.index(saved);
         return ItemMapper.toItemDto(saved);
     }
 
     @Override
     public ItemWithBookingsDto getItem(Long itemId, Long userId) {
-        Item item = itemRepository.findById(itemId)
+        Item item = itemRepository.findWithBookingPointersById(itemId)
                 .orElseThrow(() -> new NotFoundException("Предмет не найден с id: " + itemId));
 
         ItemWithBookingsDto.BookingShortDto lastBooking = null;
         ItemWithBookingsDto.BookingShortDto nextBooking = null;
 
         if (item.getOwner().getId().equals(userId)) {
-            LocalDateTime now = LocalDateTime.now();
-
-            // Получаем все APPROVED бронирования для этой вещи
-            List<Booking> itemBookings = bookingRepository.findAllByItemIdAndStatusOrderByStartAsc(itemId, BookingStatus.APPROVED);
-
-            // Ищем последнее завершенное бронирование
-            Optional<Booking> lastBookingOpt = itemBookings.stream()
-                    .filter(b -> b.getEnd().isBefore(now))
-                    .max(Comparator.comparing(Booking::getEnd));
-
-            if (lastBookingOpt.isPresent()) {
-                Booking booking = lastBookingOpt.get();
-                lastBooking = ItemWithBookingsDto.BookingShortDto.builder()
-                        .id(booking.getId())
-                        .bookerId(booking.getBooker().getId())
-                        .build();
-            }
-
-            // Ищем ближайшее будущее бронирование
-            Optional<Booking> nextBookingOpt = itemBookings.stream()
-                    .filter(b -> b.getStart().isAfter(now))
-                    .min(Comparator.comparing(Booking::getStart));
-
-            if (nextBookingOpt.isPresent()) {
-                Booking booking = nextBookingOpt.get();
-                nextBooking = ItemWithBookingsDto.BookingShortDto.builder()
-                        .id(booking.getId())
-                        .bookerId(booking.getBooker().getId())
-                        .build();
-            }
+            ItemBookingPointers.Pointers pointers = bookingPointers.actual(item, LocalDateTime.now());
+            lastBooking = toBookingShortDto(pointers.lastBooking());
+            nextBooking = toBookingShortDto(pointers.nextBooking());
         }
 
         List<Comment> comments = commentRepository.findByItemId(itemId);
@@ -133,30 +125,40 @@ public class ItemServiceImpl implements ItemService {
     }
 
     @Override
-    public List<ItemWithBookingsDto> getItemsOfUser(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new NotFoundException("Пользователь не найден с таким id: " + userId);
+    public List<ItemWithBookingsDto> getItemsOfUser(Long userId, int from, int size) {
+        requestContext.checkUserExists(userId);
+
+        // Вещи вместе с денормализованными указателями на бронирования - один запрос
+        List<Item> items = itemRepository.findWithBookingPointersByOwnerId(userId, PageRequest.of(from / size, size));
+        return toItemsWithBookings(items);
+    }
+
+    @Override
+    public List<ItemWithBookingsDto> getItemsOfUserAfter(Long userId, Long afterItemId, int size) {
+        requestContext.checkUserExists(userId);
+
+        List<Item> items = itemRepository.findWithBookingPointersByOwnerIdAfter(userId, afterItemId, PageRequest.of(0, size));
+        return toItemsWithBookings(items);
+    }
+
+    @Override
+    public void exportItemsOfUser(Long userId, Consumer<ItemDto> consumer) {
+        requestContext.checkUserExists(userId);
+
+        try (Stream<ItemDto> items = itemRepository.streamByOwnerId(userId)) {
+            items.forEach(consumer);
         }
+    }
 
-        // Загружаем все вещи пользователя
-        List<Item> items = itemRepository.findByOwnerId(userId);
+    private List<ItemWithBookingsDto> toItemsWithBookings(List<Item> items) {
         if (items.isEmpty()) {
             return List.of();
         }
 
-        // Получаем ID всех вещей
         List<Long> itemIds = items.stream()
                 .map(Item::getId)
                 .collect(Collectors.toList());
 
-        //Загружаем APPROVED бронирования для всех вещей пользователя за один запрос
-        List<Booking> allBookings = bookingRepository.findAllByItemIdInAndStatusOrderByStartAsc(
-                itemIds, BookingStatus.APPROVED);
-
-        //Группируем бронирования по ID вещи
-        Map<Long, List<Booking>> bookingsByItemId = allBookings.stream()
-                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
-
         //Загружаем все комментарии для всех вещей за один запрос
         Map<Long, List<CommentResponseDto>> commentsByItemId = commentRepository.findByItemIdIn(itemIds)
                 .stream()
@@ -165,84 +167,105 @@ public class ItemServiceImpl implements ItemService {
                         Collectors.mapping(CommentMapper::toCommentResponseDto, Collectors.toList())
                 ));
 
-        //Обрабатываем каждую вещь
         LocalDateTime now = LocalDateTime.now();
         List<ItemWithBookingsDto> result = new ArrayList<>();
 
         for (Item item : items) {
-            ItemWithBookingsDto.BookingShortDto lastBooking = null;
-            ItemWithBookingsDto.BookingShortDto nextBooking = null;
-
-            List<Booking> itemBookings = bookingsByItemId.getOrDefault(item.getId(), List.of());
-
-            if (!itemBookings.isEmpty()) {
-                // Находим последнее завершенное бронирование
-                Optional<Booking> lastBookingOpt = itemBookings.stream()
-                        .filter(b -> b.getEnd().isBefore(now))
-                        .max(Comparator.comparing(Booking::getEnd));
-
-                if (lastBookingOpt.isPresent()) {
-                    Booking booking = lastBookingOpt.get();
-                    lastBooking = ItemWithBookingsDto.BookingShortDto.builder()
-                            .id(booking.getId())
-                            .bookerId(booking.getBooker().getId())
-                            .build();
-                }
-
-                // Находим ближайшее будущее бронирование
-                Optional<Booking> nextBookingOpt = itemBookings.stream()
-                        .filter(b -> b.getStart().isAfter(now))
-                        .min(Comparator.comparing(Booking::getStart));
-
-                if (nextBookingOpt.isPresent()) {
-                    Booking booking = nextBookingOpt.get();
-                    nextBooking = ItemWithBookingsDto.BookingShortDto.builder()
-                            .id(booking.getId())
-                            .bookerId(booking.getBooker().getId())
-                            .build();
-                }
-            }
-
+            ItemBookingPointers.Pointers pointers = bookingPointers.actual(item, now);
             List<CommentResponseDto> comments = commentsByItemId.getOrDefault(item.getId(), List.of());
-            result.add(ItemMapper.toItemWithBookingsDto(item, lastBooking, nextBooking, comments));
+            result.add(ItemMapper.toItemWithBookingsDto(item,
+                    toBookingShortDto(pointers.lastBooking()),
+                    toBookingShortDto(pointers.nextBooking()),
+                    comments));
         }
 
-        //Сортируем результат по ID вещей
-        result.sort(Comparator.comparing(ItemWithBookingsDto::getId));
-
         return result;
     }
 
     @Override
-    public List<ItemDto> search(String text) {
+    public List<ItemDto> search(String text, int from, int size) {
         if (text == null || text.isBlank()) {
             return List.of();
         }
-        return itemRepository.searchAvailableByText(text)
+        return searchEngine.search(text, from, size)
                 .stream()
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<ItemDto> findAvailable(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            throw new ValidationException("Дата окончания должна быть позже даты начала");
+        }
+
+        if (text == null || text.isBlank()) {
+            return itemRepository.findAvailableBetween(start, end, PageRequest.of(from / size, size)).stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+
+        // Кандидаты поиска идут порциями, занятость каждой порции проверяется по индексу в памяти
+        // за один проход - без запроса на каждую вещь. Просмотр ограничен maxScan кандидатами:
+        // при почти полностью занятом окне или глубоком from возвращается то, что нашлось
+        List<ItemDto> result = new ArrayList<>(size);
+        int skip = from / size * size;
+        for (int scanned = 0; result.size() < size && scanned < maxScan; scanned += AVAILABILITY_SCAN_CHUNK) {
+            List<Item> candidates = searchEngine.search(text, scanned,
+                    Math.min(AVAILABILITY_SCAN_CHUNK, maxScan - scanned));
+
+            List<Long> candidateIds = candidates.stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toList());
+            Set<Long> freeIds = new HashSet<>(availabilityIndex.freeAmong(candidateIds, start, end));
+
+            for (Item item : candidates) {
+                if (result.size() == size) {
+                    break;
+                }
+                if (!freeIds.contains(item.getId())) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    result.add(ItemMapper.toItemDto(item));
+                }
+            }
+
+            // Короткая порция - не признак конца: поиск отбрасывает вещи, удалённые после индексации
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
     @Override
     @Transactional
-    public CommentResponseDto addComment(Long itemId, Long userId, CommentRequestDto commentRequestDto) {
+    public CommentWriteResult addComment(Long itemId, Long userId, CommentRequestDto commentRequestDto) {
         User author = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
 
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Вещь с ID " + itemId + " не найдена"));
 
-        LocalDateTime now = LocalDateTime.now();
-        boolean hasBooked = bookingRepository.existsByBookerIdAndItemIdAndEndBefore(userId, itemId, now);
-
-        if (!hasBooked) {
+        if (!commentEligibility.canComment(userId, itemId, LocalDateTime.now())) {
             throw new ValidationException("Пользователь не брал эту вещь в аренду или аренда еще не завершена");
         }
 
         Comment comment = CommentMapper.toComment(commentRequestDto, item, author);
-        Comment savedComment = commentRepository.save(comment);
+        return commentWriter.write(comment);
+    }
 
-        return CommentMapper.toCommentResponseDto(savedComment);
+    private static ItemWithBookingsDto.BookingShortDto toBookingShortDto(Booking booking) {
+        if (booking == null) {
+            return null;
+        }
+
+        return ItemWithBookingsDto.BookingShortDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBooker().getId())
+                .build();
     }
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.request.controller;
 
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -13,9 +17,13 @@ import java.util.List;
 @RestController
 @RequestMapping("/requests")
 @RequiredArgsConstructor
+@Validated
 public class ItemRequestController {
     private final ItemRequestService service;
 
+    @Value("${shareit.pagination.max-size:100}")
+    private int maxPageSize;
+
     @PostMapping
     public ResponseEntity<ItemRequestDto> add(
             @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
@@ -32,10 +40,23 @@ public class ItemRequestController {
         return ResponseEntity.ok(dto);
     }
 
+    // Собственные запросы пользователя с ответами, новые первыми
     @GetMapping
+    public ResponseEntity<List<ItemRequestDto>> getOwn(
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size) {
+        List<ItemRequestDto> requests = service.getOwn(userId, from, pageSize(size));
+        return ResponseEntity.ok(requests);
+    }
+
+    // Запросы других пользователей - на них можно откликнуться своей вещью
+    @GetMapping("/all")
     public ResponseEntity<List<ItemRequestDto>> getAll(
-            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId) {
-        List<ItemRequestDto> requests = service.getAll(userId);
+            @RequestHeader(HeaderConstants.SHARER_USER_ID) Long userId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(defaultValue = "10") @Positive Integer size) {
+        List<ItemRequestDto> requests = service.getAll(userId, from, pageSize(size));
         return ResponseEntity.ok(requests);
     }
 
@@ -46,4 +67,8 @@ public class ItemRequestController {
         service.deleteRequest(id, userId);
         return ResponseEntity.ok().build();
     }
+
+    private int pageSize(int size) {
+        return Math.min(size, maxPageSize);
+    }
 }
\ No newline at end of file
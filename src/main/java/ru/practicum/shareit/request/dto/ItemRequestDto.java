@@ -1,8 +1,10 @@
 package ru.practicum.shareit.request.dto;
 
 import lombok.*;
+import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -14,4 +16,5 @@ public class ItemRequestDto {
     private String description;
     private Long requestorId;  // ID пользователя, создавшего запрос
     private LocalDateTime created;
+    private List<ItemDto> items;  // Вещи, предложенные в ответ на запрос
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package ru.practicum.shareit.request.map;
 
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+
 public class ItemRequestMapper {
     public static ItemRequest toItemRequest(ItemRequestDto dto, User requestor) {
         return ItemRequest.builder()
@@ -15,11 +18,17 @@ public class ItemRequestMapper {
     }
 
     public static ItemRequestDto toItemRequestDto(ItemRequest request) {
+        return toItemRequestDto(request, List.of());
+    }
+
+    // requestor - LAZY, но для id прокси не инициализируется
+    public static ItemRequestDto toItemRequestDto(ItemRequest request, List<ItemDto> items) {
         return ItemRequestDto.builder()
                 .id(request.getId())
                 .description(request.getDescription())
                 .requestorId(request.getRequestor().getId())
                 .created(request.getCreated())
+                .items(items)
                 .build();
     }
 }
\ No newline at end of file
@@ -2,12 +2,19 @@ package ru.practicum.shareit.request.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "requests")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "entity.item-request")
+@Table(name = "requests", indexes = {
+        @Index(name = "idx_requests_requestor_created", columnList = "requestor_id, created DESC")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +22,8 @@ import java.time.LocalDateTime;
 @Builder
 public class ItemRequest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+    @SequenceGenerator(name = "requests_seq", sequenceName = "requests_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "description", nullable = false, length = 1000)
@@ -23,6 +31,7 @@ public class ItemRequest {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "requestor_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User requestor;  // Изменили с requestorId на requestor
 
     @Column(name = "created", nullable = false)
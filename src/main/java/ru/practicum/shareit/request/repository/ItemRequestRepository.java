@@ -1,7 +1,20 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.util.List;
+
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+
+    // Собственные запросы пользователя, новые первыми
+    List<ItemRequest> findByRequestorIdOrderByCreatedDescIdDesc(Long requestorId, Pageable pageable);
+
+    // Запросы остальных пользователей, новые первыми
+    List<ItemRequest> findByRequestorIdNotOrderByCreatedDescIdDesc(Long requestorId, Pageable pageable);
+
+    @Query("SELECT r.id FROM ItemRequest r WHERE r.requestor.id = :requestorId")
+    List<Long> findIdsByRequestorId(Long requestorId);
 }
\ No newline at end of file
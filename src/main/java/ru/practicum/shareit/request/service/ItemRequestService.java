@@ -9,7 +9,9 @@ public interface ItemRequestService {
 
     ItemRequestDto getRequest(Long id, Long userId);
 
-    List<ItemRequestDto> getAll(Long userId);
+    List<ItemRequestDto> getOwn(Long userId, int from, int size);
+
+    List<ItemRequestDto> getAll(Long userId, int from, int size);
 
     void deleteRequest(Long id, Long userId);
 }
\ No newline at end of file
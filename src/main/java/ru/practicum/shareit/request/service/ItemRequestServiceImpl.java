@@ -1,26 +1,40 @@
 package ru.practicum.shareit.request.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.map.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.RequestContext;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("shareit.service")
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository requestRepository;
+    private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final RequestContext requestContext;
+    private final EntityManagerFactory entityManagerFactory;
 
     @Override
     @Transactional
@@ -41,32 +55,37 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestDto getRequest(Long id, Long userId) {
         // Проверяем существование пользователя
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
+        requestContext.checkUserExists(userId);
 
         ItemRequest request = requestRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Запрос с ID " + id + " не найден"));
 
-        return ItemRequestMapper.toItemRequestDto(request);
+        return ItemRequestMapper.toItemRequestDto(request, itemRepository.findByRequestIdIn(List.of(id)));
     }
 
     @Override
-    public List<ItemRequestDto> getAll(Long userId) {
+    public List<ItemRequestDto> getOwn(Long userId, int from, int size) {
         // Проверяем существование пользователя
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
+        requestContext.checkUserExists(userId);
 
-        return requestRepository.findAll().stream()
-                .map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        return withItems(requestRepository.findByRequestorIdOrderByCreatedDescIdDesc(userId,
+                PageRequest.of(from / size, size)));
+    }
+
+    @Override
+    public List<ItemRequestDto> getAll(Long userId, int from, int size) {
+        // Проверяем существование пользователя
+        requestContext.checkUserExists(userId);
+
+        return withItems(requestRepository.findByRequestorIdNotOrderByCreatedDescIdDesc(userId,
+                PageRequest.of(from / size, size)));
     }
 
     @Override
     @Transactional
     public void deleteRequest(Long id, Long userId) {
         // Проверяем существование пользователя
-        userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
+        requestContext.checkUserExists(userId);
 
         // Проверяем, что запрос существует и принадлежит пользователю
         ItemRequest request = requestRepository.findById(id)
@@ -76,6 +95,33 @@ public class ItemRequestServiceImpl implements ItemRequestService {
             throw new NotFoundException("Запрос с ID " + id + " не принадлежит пользователю " + userId);
         }
 
+        // request_id у вещей обнуляется в БД (ON DELETE SET NULL) - эти вещи в кеше устаревают
+        List<Long> itemIds = itemRepository.findIdsByRequestIdIn(List.of(id));
         requestRepository.deleteById(id);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                itemIds.forEach(itemId -> entityManagerFactory.getCache().evict(Item.class, itemId));
+            }
+        });
+    }
+
+    // Ответы для всей страницы - один запрос IN, независимо от её размера
+    private List<ItemRequestDto> withItems(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemDto>> itemsByRequestId = itemRepository.findByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+
+        return requests.stream()
+                .map(request -> ItemRequestMapper.toItemRequestDto(request,
+                        itemsByRequestId.getOrDefault(request.getId(), List.of())))
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Множество существующих id пользователей в памяти узла - проверка X-Sharer-User-Id без обращения к БД.
+// id выдаёт последовательность, они плотные, поэтому хранятся битами: 1 млн пользователей - около 125 КБ.
+// Пополняется созданием и удалением пользователей после коммита, при старте прогревается одним
+// потоковым запросом. Отсутствие id в множестве не означает отсутствия пользователя (не прогрето,
+// создан на другом узле) - тогда вызывающий проверяет БД и добавляет найденный id через add.
+// Удаление на другом узле этот узел не видит: такой id остаётся известным до перезапуска.
+@Slf4j
+@Component
+public class KnownUserIds {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final BitSet ids = new BitSet();
+    // Удаления, пришедшие во время прогрева: прогрев мог прочитать эти строки до их удаления
+    private BitSet removedWhileWarming;
+
+    public KnownUserIds(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        lock.writeLock().lock();
+        try {
+            removedWhileWarming = new BitSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BitSet loaded = new BitSet();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Long> all = userRepository.streamAllIds()) {
+                    all.filter(KnownUserIds::fits).forEach(id -> loaded.set(id.intValue()));
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loaded.andNot(removedWhileWarming);
+                ids.or(loaded);
+                removedWhileWarming = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Известных пользователей: {}", loaded.cardinality());
+    }
+
+    public boolean contains(Long userId) {
+        if (!fits(userId)) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get(userId.intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(Long userId) {
+        if (!fits(userId)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(userId.intValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAfterCommit(Long userId) {
+        afterCommit(() -> add(userId));
+    }
+
+    public void removeAfterCommit(Long userId) {
+        afterCommit(() -> remove(userId));
+    }
+
+    private void remove(Long userId) {
+        if (!fits(userId)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.clear(userId.intValue());
+            if (removedWhileWarming != null) {
+                removedWhileWarming.set(userId.intValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // id за пределами int не хранятся и всегда проверяются по БД
+    private static boolean fits(Long userId) {
+        return userId != null && userId >= 0 && userId <= Integer.MAX_VALUE;
+    }
+}
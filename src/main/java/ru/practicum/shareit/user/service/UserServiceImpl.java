@@ -1,22 +1,45 @@
 package ru.practicum.shareit.user.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemSearchEngine;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.dto.*;
 import ru.practicum.shareit.user.map.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("shareit.service")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository repository;
+    private final ItemRepository itemRepository;
+    private final ItemRequestRepository requestRepository;
+    private final ItemSearchEngine searchEngine;
+    private final BookingRepository bookingRepository;
+    private final BookingAvailabilityIndex availabilityIndex;
+    private final KnownUserIds knownUserIds;
+    private final EntityManagerFactory entityManagerFactory;
 
     @Override
     @Transactional
@@ -26,6 +49,7 @@ public class UserServiceImpl implements UserService {
         });
         User user = UserMapper.toUser(dto);
         User saved = repository.save(user);
+        knownUserIds.addAfterCommit(saved.getId());
         return UserMapper.toUserDto(saved);
     }
 
@@ -62,11 +86,40 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void deleteUser(Long id) {
+        // id вещей нужны до удаления: после него они исчезнут из БД вместе с владельцем
+        List<Long> itemIds = itemRepository.findIdsByOwnerId(id);
+        // Вместе с пользователем удаляются бронирования его вещей и его собственные бронирования чужих вещей
+        Set<Long> bookedItemIds = new HashSet<>(itemIds);
+        bookedItemIds.addAll(bookingRepository.findApprovedItemIdsByBookerId(id));
+        List<Long> requestIds = requestRepository.findIdsByRequestorId(id);
+        // Затронутые каскадом вещи: удалённые, с обнулённым указателем на бронирование и с обнулённым request_id
+        Set<Long> cascadedItemIds = new HashSet<>(bookedItemIds);
+        if (!requestIds.isEmpty()) {
+            cascadedItemIds.addAll(itemRepository.findIdsByRequestIdIn(requestIds));
+        }
+
         repository.deleteById(id);
+        searchEngine.remove(itemIds);
+        availabilityIndex.forgetAfterCommit(bookedItemIds);
+        knownUserIds.removeAfterCommit(id);
+        evictCascadedAfterCommit(cascadedItemIds, requestIds);
     }
 
     @Override
     public boolean exists(Long id) {
         return repository.existsById(id);
     }
+
+    // Каскадное удаление в БД идёт мимо Hibernate: вещи и запросы пользователя удаляются,
+    // у чужих вещей обнуляются request_id и указатели на бронирования. Из кеша убираются только эти записи.
+    private void evictCascadedAfterCommit(Collection<Long> itemIds, Collection<Long> requestIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Cache cache = entityManagerFactory.getCache();
+                itemIds.forEach(itemId -> cache.evict(Item.class, itemId));
+                requestIds.forEach(requestId -> cache.evict(ItemRequest.class, requestId));
+            }
+        });
+    }
 }
\ No newline at end of file
@@ -2,4 +2,5 @@ package ru.practicum.shareit.util;
 
 public interface HeaderConstants {
     String SHARER_USER_ID = "X-Sharer-User-Id";
+    String NEXT_CURSOR = "X-Next-Cursor";
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.util;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.KnownUserIds;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Проверка пользователя из заголовка X-Sharer-User-Id без загрузки сущности.
+// Сначала проверяется множество KnownUserIds в памяти узла, затем кеш второго уровня, и только потом existsById;
+// найденный в БД id добавляется в множество. Подтверждённые id ещё и запоминаются в атрибутах текущего
+// HTTP-запроса, поэтому запрос делает не больше одного existsById на пользователя.
+// Вне HTTP-запроса (фоновые задачи) проверка просто не запоминается.
+@Component
+@RequiredArgsConstructor
+public class RequestContext {
+
+    private static final String VERIFIED_USERS = RequestContext.class.getName() + ".verifiedUsers";
+
+    private final UserRepository userRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final KnownUserIds knownUserIds;
+
+    public void checkUserExists(Long userId) {
+        Set<Long> verified = verifiedUsers();
+        if (verified != null && verified.contains(userId)) {
+            return;
+        }
+
+        if (!knownUserIds.contains(userId) && !isCached(userId)) {
+            if (!userRepository.existsById(userId)) {
+                throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+            }
+            knownUserIds.add(userId);
+        }
+
+        if (verified != null) {
+            verified.add(userId);
+        }
+    }
+
+    private boolean isCached(Long userId) {
+        return entityManagerFactory.getCache().contains(User.class, userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> verifiedUsers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Set<Long> verified = (Set<Long>) attributes.getAttribute(VERIFIED_USERS, RequestAttributes.SCOPE_REQUEST);
+        if (verified == null) {
+            verified = new HashSet<>();
+            attributes.setAttribute(VERIFIED_USERS, verified, RequestAttributes.SCOPE_REQUEST);
+        }
+        return verified;
+    }
+}
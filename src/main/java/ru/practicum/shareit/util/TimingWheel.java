@@ -0,0 +1,101 @@
+package ru.practicum.shareit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Иерархическое колесо таймеров (как в Kafka и Netty). Уровень 0 - wheelSize ячеек по tickMs,
+// каждый следующий уровень - столько же ячеек шириной во весь предыдущий уровень, уровни создаются по мере нужды.
+// Добавление таймера - O(1), продвижение на такт - O(1) плюс число сработавших и спущенных уровнем ниже таймеров.
+// Точность - один такт. Не потокобезопасно: вызывающий синхронизирует add и advance сам.
+public class TimingWheel<T> {
+
+    private final Level root;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.root = new Level(tickMs, wheelSize, startMs);
+    }
+
+    private record Entry<T>(T task, long deadlineMs) {
+    }
+
+    // false - срок уже наступил (в пределах текущего такта), таймер не добавлен и вызывающий выполняет его сам
+    public boolean add(T task, long deadlineMs) {
+        if (!root.add(new Entry<>(task, deadlineMs))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    // Прокручивает колесо до nowMs по одному такту; таймеры дальних уровней при наступлении
+    // их ячейки спускаются ниже или срабатывают
+    public void advance(long nowMs, Consumer<T> expired) {
+        List<Entry<T>> due = new ArrayList<>();
+        while (root.currentTime + root.tickMs <= nowMs) {
+            root.advanceTo(root.currentTime + root.tickMs, due);
+            for (Entry<T> entry : due) {
+                if (!root.add(entry)) {
+                    size--;
+                    expired.accept(entry.task());
+                }
+            }
+            due.clear();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private final class Level {
+        private final long tickMs;
+        private final long intervalMs;
+        private final List<Entry<T>>[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        @SuppressWarnings("unchecked")
+        private Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.intervalMs = tickMs * wheelSize;
+            this.buckets = new List[wheelSize];
+            this.currentTime = startMs - startMs % tickMs;
+        }
+
+        private boolean add(Entry<T> entry) {
+            if (entry.deadlineMs() < currentTime + tickMs) {
+                return false;
+            }
+            if (entry.deadlineMs() < currentTime + intervalMs) {
+                int index = (int) ((entry.deadlineMs() / tickMs) % buckets.length);
+                if (buckets[index] == null) {
+                    buckets[index] = new ArrayList<>();
+                }
+                buckets[index].add(entry);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(intervalMs, buckets.length, currentTime);
+            }
+            return overflow.add(entry);
+        }
+
+        // Ячейка, время которой наступило, отдаётся целиком: вызывающий перераспределяет её записи
+        private void advanceTo(long time, List<Entry<T>> due) {
+            if (time < currentTime + tickMs) {
+                return;
+            }
+            currentTime = time - time % tickMs;
+            int index = (int) ((currentTime / tickMs) % buckets.length);
+            if (buckets[index] != null) {
+                due.addAll(buckets[index]);
+                buckets[index] = null;
+            }
+            if (overflow != null) {
+                overflow.advanceTo(time, due);
+            }
+        }
+    }
+}
@@ -1,7 +1,16 @@
+-- Последовательности id: шаг равен allocationSize в @SequenceGenerator сущностей,
+-- Hibernate раздаёт значения из диапазона в памяти (оптимизатор pooled-lo)
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS booking_outbox_seq START WITH 1 INCREMENT BY 50;
+
 -- Создание таблицы пользователей
 CREATE TABLE IF NOT EXISTS users
 (
-    id    BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id    BIGINT                                  NOT NULL,
     name  VARCHAR(255)                            NOT NULL,
     email VARCHAR(512)                            NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (id),
@@ -11,7 +20,7 @@ CREATE TABLE IF NOT EXISTS users
 -- Создание таблицы запросов
 CREATE TABLE IF NOT EXISTS requests
 (
-    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id           BIGINT                                  NOT NULL,
     description  VARCHAR(1000)                           NOT NULL,
     requestor_id BIGINT                                  NOT NULL,
     created      TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
@@ -22,12 +31,15 @@ CREATE TABLE IF NOT EXISTS requests
 -- Создание таблицы вещей
 CREATE TABLE IF NOT EXISTS items
 (
-    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id           BIGINT                                  NOT NULL,
     name         VARCHAR(255)                            NOT NULL,
     description  VARCHAR(1000)                           NOT NULL,
     is_available BOOLEAN                                 NOT NULL,
     owner_id     BIGINT                                  NOT NULL,
     request_id   BIGINT,
+    last_booking_id            BIGINT,
+    next_booking_id            BIGINT,
+    booking_pointers_expire_at TIMESTAMP WITHOUT TIME ZONE,
     CONSTRAINT pk_item PRIMARY KEY (id),
     CONSTRAINT fk_item_to_user FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT fk_item_to_request FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE SET NULL
@@ -36,22 +48,42 @@ CREATE TABLE IF NOT EXISTS items
 -- Создание таблицы бронирований
 CREATE TABLE IF NOT EXISTS bookings
 (
-    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id         BIGINT                                  NOT NULL,
     start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
     item_id    BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
+    owner_id   BIGINT                                  NOT NULL,
     status     VARCHAR(20)                             NOT NULL,
+    version    BIGINT                                  NOT NULL DEFAULT 0,
     CONSTRAINT pk_booking PRIMARY KEY (id),
     CONSTRAINT fk_booking_to_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
     CONSTRAINT fk_booking_to_user FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_booking_to_owner FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT check_dates CHECK (end_date > start_date)
 );
 
+-- Индексы для keyset-пагинации бронирований и выборки вещей владельца
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id);
+CREATE INDEX IF NOT EXISTS idx_items_owner ON items (owner_id);
+
+-- Списки запросов вещей (свои/чужие, новые первыми) и ответы на них
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created DESC);
+CREATE INDEX IF NOT EXISTS idx_items_request ON items (request_id);
+
+-- Указатели на последнее/ближайшее бронирование вещи и их срок годности
+CREATE INDEX IF NOT EXISTS idx_items_booking_pointers_expire_at ON items (booking_pointers_expire_at);
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+
+-- Бронирования владельца по bookings.owner_id (копия items.owner_id): ALL/FUTURE, WAITING/REJECTED, PAST/CURRENT
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_start ON bookings (owner_id, start_date DESC, id);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_status_start ON bookings (owner_id, status, start_date DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_owner_end ON bookings (owner_id, end_date);
+
 -- Создание таблицы комментариев
 CREATE TABLE IF NOT EXISTS comments
 (
-    id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id        BIGINT                                  NOT NULL,
     text      VARCHAR(1000)                           NOT NULL,
     item_id   BIGINT                                  NOT NULL,
     author_id BIGINT                                  NOT NULL,
@@ -59,4 +91,22 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT pk_comment PRIMARY KEY (id),
     CONSTRAINT fk_comment_to_item FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
     CONSTRAINT fk_comment_to_user FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- Outbox событий бронирований: пишется в транзакции изменения, вычитывается и очищается OutboxRelay
+CREATE TABLE IF NOT EXISTS booking_outbox
+(
+    id          BIGINT                                  NOT NULL,
+    event_type  VARCHAR(20)                             NOT NULL,
+    booking_id  BIGINT                                  NOT NULL,
+    item_id     BIGINT                                  NOT NULL,
+    owner_id    BIGINT                                  NOT NULL,
+    booker_id   BIGINT                                  NOT NULL,
+    start_date  TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date    TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    status      VARCHAR(20)                             NOT NULL,
+    occurred_at TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_booking_outbox PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_outbox_occurred ON booking_outbox (occurred_at, id);
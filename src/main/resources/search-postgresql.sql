@@ -0,0 +1,5 @@
+-- Триграммные GIN-индексы PostgreSQL для поиска вещей по подстроке (ItemRepository.searchAvailableByText): LOWER(...) LIKE '%text%' без полного сканирования items.
+-- Выполняется Hibernate после создания схемы (hibernate.hbm2ddl.import_files), по одной команде на строку.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (LOWER(name) gin_trgm_ops) WHERE is_available;
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING gin (LOWER(description) gin_trgm_ops) WHERE is_available;
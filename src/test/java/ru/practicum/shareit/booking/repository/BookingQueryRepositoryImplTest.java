@@ -0,0 +1,116 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingRole;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Страница бронирований любой роли и состояния - ровно одно SQL-выражение (статистика Hibernate)
+@DataJpaTest
+@ActiveProfiles("test")
+class BookingQueryRepositoryImplTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int BOOKINGS = 15;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        owner = em.persist(User.builder().name("owner").email("owner@mail.ru").build());
+        booker = em.persist(User.builder().name("booker").email("booker@mail.ru").build());
+        Item item = em.persist(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .owner(owner)
+                .build());
+
+        // Прошедшие, текущее и будущие бронирования во всех статусах
+        LocalDateTime now = LocalDateTime.now();
+        BookingStatus[] statuses = {BookingStatus.APPROVED, BookingStatus.WAITING, BookingStatus.REJECTED};
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = now.plusDays(i - 5);
+            em.persist(Booking.builder()
+                    .start(start)
+                    .end(i == 5 ? start.plusHours(1) : start.plusHours(12))
+                    .item(item)
+                    .booker(booker)
+                    .ownerId(owner.getId())
+                    .status(statuses[i % statuses.length])
+                    .build());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingState.class)
+    void ownerPageIsSingleStatement(BookingState state) {
+        assertSingleStatement(BookingRole.OWNER, owner.getId(), state);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingState.class)
+    void bookerPageIsSingleStatement(BookingState state) {
+        assertSingleStatement(BookingRole.BOOKER, booker.getId(), state);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingRole.class)
+    void keysetPageIsSingleStatement(BookingRole role) {
+        Long userId = role == BookingRole.OWNER ? owner.getId() : booker.getId();
+        List<BookingView> first = bookingRepository.findByRole(role, userId, BookingState.ALL, LocalDateTime.now(),
+                null, null, 0, PAGE_SIZE);
+        BookingView last = first.get(first.size() - 1);
+
+        statistics.clear();
+        List<BookingView> next = bookingRepository.findByRole(role, userId, BookingState.ALL, LocalDateTime.now(),
+                last.start(), last.id(), 0, PAGE_SIZE);
+
+        assertEquals(BOOKINGS - PAGE_SIZE, next.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private void assertSingleStatement(BookingRole role, Long userId, BookingState state) {
+        statistics.clear();
+
+        List<BookingView> page = bookingRepository.findByRole(role, userId, state, LocalDateTime.now(),
+                null, null, 0, PAGE_SIZE);
+
+        if (state == BookingState.ALL) {
+            assertEquals(PAGE_SIZE, page.size());
+        }
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                "Страница " + role + "/" + state + " выполнила больше одного SQL-выражения");
+        assertEquals(0, statistics.getEntityLoadCount(), "Страница не должна загружать сущности");
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Схема из ddl-auto (schema.sql в тестовом профиле не выполняется) содержит внешний ключ и индексы owner_id
+@DataJpaTest
+@ActiveProfiles("test")
+class BookingSchemaTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void ownerForeignKeyCascadesOnDelete() {
+        List<String> rules = jdbc.queryForList(
+                "SELECT DELETE_RULE FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS"
+                        + " WHERE UPPER(CONSTRAINT_NAME) = 'FK_BOOKING_TO_OWNER'", String.class);
+
+        assertEquals(List.of("CASCADE"), rules);
+    }
+
+    @Test
+    void ownerIndexesExist() {
+        List<String> indexes = jdbc.queryForList(
+                "SELECT UPPER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE UPPER(TABLE_NAME) = 'BOOKINGS'",
+                String.class);
+
+        assertTrue(indexes.containsAll(List.of("IDX_BOOKINGS_OWNER_START", "IDX_BOOKINGS_OWNER_STATUS_START",
+                "IDX_BOOKINGS_OWNER_END")), "Индексы bookings: " + indexes);
+    }
+}
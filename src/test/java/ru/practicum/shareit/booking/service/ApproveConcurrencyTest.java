@@ -0,0 +1,176 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.UnavailableItemException;
+import ru.practicum.shareit.item.dto.ItemCreateDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserCreateDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+// Параллельные подтверждения пересекающихся бронирований одной вещи: блокировка строки вещи
+// и проверка пересечения по БД должны пропустить ровно одно
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:approve-concurrency;LOCK_TIMEOUT=10000")
+@ActiveProfiles("test")
+class ApproveConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    private Long ownerId;
+    private Long itemId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = createUser();
+        bookerId = createUser();
+        itemId = itemService.addItem(ItemCreateDto.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .build(), ownerId).getId();
+    }
+
+    @Test
+    void parallelApproveLetsExactlyOneOverlappingBookingThrough() throws Exception {
+        List<Long> bookingIds = createOverlapping(THREADS);
+
+        List<Throwable> failures = runConcurrently(bookingIds.stream()
+                .<Callable<Object>>map(id -> () -> bookingService.approve(id, ownerId, true))
+                .toList());
+
+        assertEquals(1, countApproved(bookingIds));
+        assertEquals(THREADS - 1, failures.size());
+        failures.forEach(failure -> assertInstanceOf(UnavailableItemException.class, failure));
+    }
+
+    @Test
+    void parallelApproveBatchLetsExactlyOneOverlappingBookingThrough() throws Exception {
+        List<Long> bookingIds = createOverlapping(THREADS);
+        List<List<BookingBatchResultDto>> results = new ArrayList<>();
+
+        List<Throwable> failures = runConcurrently(bookingIds.stream()
+                .<Callable<Object>>map(id -> () -> {
+                    List<BookingBatchResultDto> batch = bookingService.approveBatch(List.of(id), ownerId, true);
+                    synchronized (results) {
+                        results.add(batch);
+                    }
+                    return batch;
+                })
+                .toList());
+
+        assertEquals(List.of(), failures);
+        assertEquals(1, countApproved(bookingIds));
+        assertEquals(1, results.stream()
+                .filter(batch -> batch.get(0).getStatus() == HttpStatus.OK.value())
+                .count());
+    }
+
+    @Test
+    void concurrentDecisionOnOneRowDoesNotRollBackRestOfBatch() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long contested = createBooking(start, start.plusDays(1));
+        Long other = createBooking(start.plusDays(5), start.plusDays(6));
+
+        List<Throwable> failures = runConcurrently(List.of(
+                () -> bookingService.approveBatch(List.of(contested, other), ownerId, true),
+                () -> bookingService.approveBatch(List.of(contested), ownerId, false)));
+
+        assertEquals(List.of(), failures);
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(other).orElseThrow().getStatus());
+    }
+
+    private List<Throwable> runConcurrently(List<Callable<Object>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Object>> futures = tasks.stream()
+                    .map(task -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .toList();
+            start.countDown();
+
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                } catch (TimeoutException e) {
+                    throw new AssertionError("Подтверждение не завершилось", e);
+                }
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> createOverlapping(int count) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(createBooking(start.plusHours(i), start.plusDays(1).plusHours(i)));
+        }
+        return ids;
+    }
+
+    private Long createBooking(LocalDateTime start, LocalDateTime end) {
+        return bookingService.create(BookingRequestDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(end)
+                .build(), bookerId).getId();
+    }
+
+    private long countApproved(List<Long> bookingIds) {
+        return bookingRepository.findAllById(bookingIds).stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .count();
+    }
+
+    private Long createUser() {
+        return userService.createUser(UserCreateDto.builder()
+                .name("Пользователь")
+                .email(UUID.randomUUID() + "@mail.ru")
+                .build()).getId();
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingAvailabilityIndexTest {
+
+    private static final Long ITEM_ID = 1L;
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingAvailabilityIndex index = new BookingAvailabilityIndex(bookingRepository, 100);
+
+    @Test
+    void forgottenItemIsReloadedWithoutDeletedBookings() {
+        Booking approved = Booking.builder()
+                .item(Item.builder().id(ITEM_ID).build())
+                .start(START)
+                .end(END)
+                .status(BookingStatus.APPROVED)
+                .build();
+        when(bookingRepository.findAllByItemIdAndStatusOrderByStartAsc(ITEM_ID, BookingStatus.APPROVED))
+                .thenReturn(List.of(approved))
+                .thenReturn(List.of());
+
+        assertFalse(index.isFree(ITEM_ID, START, END));
+
+        // бронирование удалено каскадом вместе с арендатором
+        index.forgetAfterCommit(List.of(ITEM_ID));
+
+        assertTrue(index.isFree(ITEM_ID, START, END));
+        verify(bookingRepository, times(2)).findAllByItemIdAndStatusOrderByStartAsc(ITEM_ID, BookingStatus.APPROVED);
+    }
+
+    @Test
+    void freeAmongWarmsMissingItemsInOneQuery() {
+        when(bookingRepository.findAllByItemIdInAndStatusOrderByStartAsc(List.of(1L, 2L), BookingStatus.APPROVED))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(1L, 2L), index.freeAmong(List.of(1L, 2L), START, END));
+        assertEquals(List.of(1L, 2L), index.freeAmong(List.of(1L, 2L), START, END));
+        verify(bookingRepository).findAllByItemIdInAndStatusOrderByStartAsc(List.of(1L, 2L), BookingStatus.APPROVED);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.InMemoryBookingEventBus;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.service.CommentEligibilityCache;
+import ru.practicum.shareit.item.service.ItemBookingPointers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookingLifecycleSchedulerTest {
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingService bookingService = mock(BookingService.class);
+    private final ItemBookingPointers itemBookingPointers = mock(ItemBookingPointers.class);
+    private final CommentEligibilityCache commentEligibility = mock(CommentEligibilityCache.class);
+    private final InMemoryBookingEventBus bus = new InMemoryBookingEventBus();
+
+    private BookingLifecycleScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<InMemoryBookingEventBus> eventBus = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<InMemoryBookingEventBus>>getArgument(0).accept(bus);
+            return null;
+        }).when(eventBus).ifAvailable(any());
+
+        scheduler = new BookingLifecycleScheduler(bookingRepository, bookingService, itemBookingPointers,
+                commentEligibility, eventBus, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1000);
+        scheduler.recover();
+    }
+
+    @Test
+    void overdueTransitionsFromEventsRunOnTickNotInRelay() {
+        LocalDateTime now = LocalDateTime.now();
+        bus.publish(List.of(
+                event(1L, BookingStatus.WAITING, now.minusMinutes(1), now.plusDays(1)),
+                event(2L, BookingStatus.APPROVED, now.minusDays(2), now.minusDays(1))));
+
+        // подписчик вызывается в транзакции ретранслятора и ничего не пишет
+        verifyNoInteractions(bookingService, itemBookingPointers, commentEligibility);
+
+        scheduler.tick();
+
+        verify(bookingService).expireWaiting(List.of(1L));
+        verify(itemBookingPointers).refresh(10L);
+        verify(commentEligibility).invalidateAfterCommit(100L);
+    }
+
+    @Test
+    void failedExpireIsRetriedOnNextTick() {
+        LocalDateTime now = LocalDateTime.now();
+        when(bookingService.expireWaiting(List.of(1L)))
+                .thenThrow(new IllegalStateException("БД недоступна"))
+                .thenReturn(1);
+        bus.publish(List.of(event(1L, BookingStatus.WAITING, now.minusMinutes(1), now.plusDays(1))));
+
+        scheduler.tick();
+        scheduler.tick();
+
+        verify(bookingService, times(2)).expireWaiting(List.of(1L));
+
+        scheduler.tick();
+
+        verify(bookingService, times(2)).expireWaiting(List.of(1L));
+    }
+
+    @Test
+    void failedPointerRefreshIsRetriedOnNextTick() {
+        LocalDateTime now = LocalDateTime.now();
+        doAnswer(invocation -> {
+            throw new IllegalStateException("БД недоступна");
+        }).doNothing().when(itemBookingPointers).refresh(10L);
+        bus.publish(List.of(event(2L, BookingStatus.APPROVED, now.minusDays(2), now.minusDays(1))));
+
+        scheduler.tick();
+        scheduler.tick();
+
+        verify(itemBookingPointers, times(2)).refresh(10L);
+    }
+
+    @Test
+    void futureTransitionsStayOnWheel() {
+        LocalDateTime now = LocalDateTime.now();
+        bus.publish(List.of(event(1L, BookingStatus.WAITING, now.plusDays(1), now.plusDays(2))));
+
+        scheduler.tick();
+
+        verify(bookingService, never()).expireWaiting(any());
+    }
+
+    private static BookingEvent event(Long bookingId, BookingStatus status, LocalDateTime start, LocalDateTime end) {
+        BookingEventType type = status == BookingStatus.WAITING ? BookingEventType.CREATED : BookingEventType.APPROVED;
+        return new BookingEvent(bookingId, type, bookingId, 10L, 1000L, 100L, start, end, status, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.HeaderConstants;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Две H2 в памяти: основная и реплика. Схема копируется на реплику скриптом, а строки пишутся в каждую
+// БД отдельно с разными именами - так по прочитанному имени видно, откуда пришло чтение.
+// lag-query падает, пока на реплике нет таблиц: при старте контекста чтение идёт в основную БД.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica.enabled=true",
+        "shareit.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica.username=dbuser",
+        "shareit.datasource.replica.password=12345",
+        "shareit.datasource.replica.read-only=false",
+        "shareit.datasource.routing.lag-query=SELECT COUNT(*) * 0 FROM users",
+        "shareit.datasource.routing.lag-check-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingTest {
+
+    private static final AtomicLong IDS = new AtomicLong(1_000_000);
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaRoutingPolicy policy;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        Path script = Files.createTempFile("shareit-schema", ".sql");
+        try {
+            primary.execute("SCRIPT NODATA TO '" + script + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+        policy.checkReplica();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionReadsReplicaWithoutFillingCache() {
+        long id = insertDiverged();
+
+        assertEquals("replica", readName(id));
+        assertFalse(entityManagerFactory.getCache().contains(User.class, id));
+        // повторное чтение снова идёт в реплику, а не берёт строку из кеша
+        assertEquals("replica", readName(id));
+    }
+
+    @Test
+    void recentWriterReadsPrimaryAndFillsCache() {
+        long id = insertDiverged();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HeaderConstants.SHARER_USER_ID, String.valueOf(id));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        policy.markWrite(id);
+
+        assertEquals("primary", readName(id));
+        assertTrue(entityManagerFactory.getCache().contains(User.class, id));
+    }
+
+    @Test
+    void replicaReadAfterPrimaryReadUsesCachedPrimaryRow() {
+        long id = insertDiverged();
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+
+        String name = writeTransaction.execute(status -> userRepository.findById(id).orElseThrow().getName());
+
+        assertEquals("primary", name);
+        assertEquals("primary", readName(id));
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() {
+        long id = insertDiverged();
+        replica.execute("DROP TABLE users CASCADE");
+        policy.checkReplica();
+
+        assertEquals("primary", readName(id));
+    }
+
+    private String readName(long id) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return readOnlyTransaction.execute(status -> userRepository.findById(id).orElseThrow().getName());
+    }
+
+    private long insertDiverged() {
+        long id = IDS.incrementAndGet();
+        String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+        primary.update(sql, id, "primary", id + "@mail.ru");
+        replica.update(sql, id, "replica", id + "@mail.ru");
+        return id;
+    }
+}
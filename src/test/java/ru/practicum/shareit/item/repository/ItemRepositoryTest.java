@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ItemRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 10, 10, 0);
+    private static final LocalDateTime END = START.plusDays(2);
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void findAvailableBetweenSkipsItemsWithOverlappingApprovedBookings() {
+        User owner = em.persist(User.builder().name("owner").email("owner@mail.ru").build());
+        User booker = em.persist(User.builder().name("booker").email("booker@mail.ru").build());
+        Item overlapped = persistItem(owner, true);
+        Item adjacent = persistItem(owner, true);
+        Item waitingOnly = persistItem(owner, true);
+        persistItem(owner, false);
+        Item free = persistItem(owner, true);
+
+        persistBooking(overlapped, booker, owner, START.minusDays(1), START.plusHours(1), BookingStatus.APPROVED);
+        // [start, end) - аренда, заканчивающаяся в момент начала окна, не мешает
+        persistBooking(adjacent, booker, owner, START.minusDays(1), START, BookingStatus.APPROVED);
+        persistBooking(waitingOnly, booker, owner, START, END, BookingStatus.WAITING);
+        em.flush();
+        em.clear();
+
+        List<Long> ids = itemRepository.findAvailableBetween(START, END, PageRequest.of(0, 10)).stream()
+                .map(Item::getId)
+                .toList();
+
+        assertEquals(List.of(adjacent.getId(), waitingOnly.getId(), free.getId()), ids);
+    }
+
+    private Item persistItem(User owner, boolean available) {
+        return em.persist(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(available)
+                .owner(owner)
+                .build());
+    }
+
+    private void persistBooking(Item item, User booker, User owner, LocalDateTime start, LocalDateTime end,
+                                BookingStatus status) {
+        em.persist(Booking.builder()
+                .start(start)
+                .end(end)
+                .item(item)
+                .booker(booker)
+                .ownerId(owner.getId())
+                .status(status)
+                .build());
+    }
+}
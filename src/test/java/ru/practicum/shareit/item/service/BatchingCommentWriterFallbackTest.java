@@ -0,0 +1,106 @@
+package ru.practicum.shareit.item.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.sequence.SequenceSupport;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Пакет не записался: отзывы пишутся по одному, сбой БД повторяется на следующих сбросах
+class BatchingCommentWriterFallbackTest {
+
+    private static final String NEXT_VAL = "select next value for comments_seq";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private BatchingCommentWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        JdbcServices jdbcServices = mock(JdbcServices.class);
+        Dialect dialect = mock(Dialect.class);
+        SequenceSupport sequenceSupport = mock(SequenceSupport.class);
+        when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getJdbcServices()).thenReturn(jdbcServices);
+        when(jdbcServices.getDialect()).thenReturn(dialect);
+        when(dialect.getSequenceSupport()).thenReturn(sequenceSupport);
+        when(sequenceSupport.getSequenceNextValString("comments_seq")).thenReturn(NEXT_VAL);
+        when(jdbcTemplate.queryForObject(NEXT_VAL, Long.class)).thenReturn(1L);
+        when(jdbcTemplate.batchUpdate(anyString(), any(), anyInt(), any()))
+                .thenThrow(new TransientDataAccessResourceException("БД недоступна"));
+
+        writer = new BatchingCommentWriter(jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(CommentRepository.class), entityManagerFactory, 10, 10, MAX_ATTEMPTS);
+    }
+
+    @Test
+    void transientFailureIsRetriedOnNextFlush() {
+        when(jdbcTemplate.update(anyString(), eq(1L), any(), any(), any(), any()))
+                .thenThrow(new TransientDataAccessResourceException("БД недоступна"))
+                .thenReturn(1);
+        writer.write(comment());
+
+        writer.flush();
+        writer.flush();
+        writer.flush();
+
+        verify(jdbcTemplate, times(2)).update(anyString(), eq(1L), any(), any(), any(), any());
+    }
+
+    @Test
+    void retriesAreBounded() {
+        when(jdbcTemplate.update(anyString(), eq(1L), any(), any(), any(), any()))
+                .thenThrow(new TransientDataAccessResourceException("БД недоступна"));
+        writer.write(comment());
+
+        for (int i = 0; i < MAX_ATTEMPTS + 2; i++) {
+            writer.flush();
+        }
+
+        verify(jdbcTemplate, times(MAX_ATTEMPTS)).update(anyString(), eq(1L), any(), any(), any(), any());
+    }
+
+    @Test
+    void commentOfDeletedItemIsNotRetried() {
+        when(jdbcTemplate.update(anyString(), eq(1L), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("fk_comment_to_item"));
+        writer.write(comment());
+
+        writer.flush();
+        writer.flush();
+
+        verify(jdbcTemplate, times(1)).update(anyString(), eq(1L), any(), any(), any(), any());
+    }
+
+    private static Comment comment() {
+        return Comment.builder()
+                .text("Отличная дрель")
+                .item(Item.builder().id(10L).build())
+                .author(User.builder().id(100L).build())
+                .created(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.item.dto.CommentWriteResult;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Очередь на один отзыв и редкий сброс: второй отзыв не помещается и пишется синхронно
+@SpringBootTest(properties = {
+        "shareit.comments.write-mode=async",
+        "shareit.comments.async.queue-capacity=1",
+        "shareit.comments.async.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class BatchingCommentWriterTest {
+
+    @Autowired
+    private CommentWriter commentWriter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void reportsQueuedOnlyWhileQueueHasRoom() {
+        User author = userRepository.save(User.builder()
+                .name("Автор")
+                .email(UUID.randomUUID() + "@mail.ru")
+                .build());
+        Item item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .owner(author)
+                .build());
+
+        CommentWriteResult queued = commentWriter.write(comment(item, author));
+        CommentWriteResult written = commentWriter.write(comment(item, author));
+
+        assertTrue(queued.queued());
+        assertNotNull(queued.comment().getId());
+        assertFalse(written.queued());
+        assertNotNull(written.comment().getId());
+    }
+
+    private static Comment comment(Item item, User author) {
+        return Comment.builder()
+                .text("Отличная дрель")
+                .item(item)
+                .author(author)
+                .created(LocalDateTime.now())
+                .build();
+    }
+}
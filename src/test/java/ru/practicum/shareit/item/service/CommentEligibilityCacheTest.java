@@ -0,0 +1,84 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommentEligibilityCacheTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long ITEM_ID = 10L;
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final CommentEligibilityCache cache =
+            new CommentEligibilityCache(bookingRepository, 100, Duration.ofMinutes(10));
+
+    @Test
+    void invalidationDuringLoadIsNotOverwrittenByStaleValue() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookingRepository.findCompletedItemIdsByBookerId(eq(USER_ID), any()))
+                .thenAnswer(invocation -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return List.of();
+                })
+                .thenReturn(List.of(ITEM_ID));
+
+        CompletableFuture<Boolean> staleRead = CompletableFuture.supplyAsync(
+                () -> cache.canComment(USER_ID, ITEM_ID, now));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // сброс после коммита подтверждения приходит, пока первая загрузка ещё читает старые данные
+        Thread invalidator = new Thread(() -> cache.invalidateAfterCommit(USER_ID));
+        invalidator.start();
+        awaitBlocked(invalidator);
+        release.countDown();
+        invalidator.join(5000);
+
+        assertFalse(staleRead.get(5, TimeUnit.SECONDS));
+        assertTrue(cache.canComment(USER_ID, ITEM_ID, now));
+        verify(bookingRepository, times(2)).findCompletedItemIdsByBookerId(eq(USER_ID), any());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        LocalDateTime now = LocalDateTime.now();
+        when(bookingRepository.findCompletedItemIdsByBookerId(eq(USER_ID), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(ITEM_ID));
+        when(bookingRepository.findNearestBookingEndForBooker(eq(USER_ID), any()))
+                .thenReturn(now.plusHours(1));
+
+        assertFalse(cache.canComment(USER_ID, ITEM_ID, now));
+        assertFalse(cache.canComment(USER_ID, ITEM_ID, now.plusMinutes(30)));
+        assertTrue(cache.canComment(USER_ID, ITEM_ID, now.plusHours(2)));
+        verify(bookingRepository, times(2)).findCompletedItemIdsByBookerId(eq(USER_ID), any());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() == Thread.State.RUNNABLE || thread.getState() == Thread.State.NEW) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("invalidate не дождался загрузки");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ItemBookingPointersTest {
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final ItemBookingPointers pointers =
+            new ItemBookingPointers(itemRepository, mock(BookingRepository.class), transactionManager);
+
+    @Test
+    void rollForwardDrainsAllStalePagesInOneRun() {
+        when(itemRepository.findIdsWithExpiredBookingPointers(any(), eq(0L), any(Pageable.class)))
+                .thenReturn(ids(1, 500));
+        when(itemRepository.findIdsWithExpiredBookingPointers(any(), eq(500L), any(Pageable.class)))
+                .thenReturn(ids(501, 1000));
+        when(itemRepository.findIdsWithExpiredBookingPointers(any(), eq(1000L), any(Pageable.class)))
+                .thenReturn(ids(1001, 1003));
+        when(itemRepository.findAllById(anyList())).thenReturn(List.of());
+
+        pointers.rollForward();
+
+        verify(itemRepository, times(3)).findIdsWithExpiredBookingPointers(any(), any(), any(Pageable.class));
+        // каждая страница - в своей транзакции
+        verify(transactionManager, times(3)).getTransaction(any());
+    }
+
+    @Test
+    void rollForwardStopsOnEmptyPage() {
+        when(itemRepository.findIdsWithExpiredBookingPointers(any(), eq(0L), any(Pageable.class)))
+                .thenReturn(ids(1, 500));
+        when(itemRepository.findIdsWithExpiredBookingPointers(any(), eq(500L), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(itemRepository.findAllById(anyList())).thenReturn(List.of());
+
+        pointers.rollForward();
+
+        verify(itemRepository, times(2)).findIdsWithExpiredBookingPointers(any(), any(), any(Pageable.class));
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
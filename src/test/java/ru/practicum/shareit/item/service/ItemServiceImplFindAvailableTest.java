@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.service.BookingAvailabilityIndex;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ItemServiceImplFindAvailableTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 10, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    @Mock
+    private ItemSearchEngine searchEngine;
+
+    @Mock
+    private BookingAvailabilityIndex availabilityIndex;
+
+    @InjectMocks
+    private ItemServiceImpl itemService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemService, "maxScan", 1000);
+    }
+
+    @Test
+    void scanStopsAtCapWhenEverythingIsBooked() {
+        when(searchEngine.search(eq("дрель"), anyInt(), anyInt()))
+                .thenAnswer(invocation -> items(invocation.getArgument(1), invocation.getArgument(2)));
+        when(availabilityIndex.freeAmong(anyList(), any(), any())).thenReturn(List.of());
+
+        List<ItemDto> found = itemService.findAvailable("дрель", START, END, 0, 10);
+
+        assertTrue(found.isEmpty());
+        verify(searchEngine).search("дрель", 0, 500);
+        verify(searchEngine).search("дрель", 500, 500);
+        verify(searchEngine, times(2)).search(eq("дрель"), anyInt(), anyInt());
+    }
+
+    @Test
+    void returnsWhatWasFoundWithinCap() {
+        when(searchEngine.search(eq("дрель"), anyInt(), anyInt()))
+                .thenAnswer(invocation -> items(invocation.getArgument(1), invocation.getArgument(2)));
+        // свободна только первая вещь каждой порции
+        when(availabilityIndex.freeAmong(anyList(), any(), any()))
+                .thenAnswer(invocation -> List.of(invocation.<List<Long>>getArgument(0).get(0)));
+
+        List<ItemDto> found = itemService.findAvailable("дрель", START, END, 0, 10);
+
+        assertEquals(List.of(1L, 501L), found.stream().map(ItemDto::getId).toList());
+        verify(searchEngine, times(2)).search(eq("дрель"), anyInt(), anyInt());
+    }
+
+    private static List<Item> items(int from, int size) {
+        return LongStream.rangeClosed(from + 1, from + size)
+                .mapToObj(id -> Item.builder().id(id).name("Дрель " + id).available(true).build())
+                .toList();
+    }
+}
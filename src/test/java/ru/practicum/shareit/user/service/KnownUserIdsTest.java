@@ -0,0 +1,57 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KnownUserIdsTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final KnownUserIds knownUserIds =
+            new KnownUserIds(userRepository, mock(PlatformTransactionManager.class));
+
+    @Test
+    void warmLoadsExistingIdsAndUpdatesFollowWrites() {
+        when(userRepository.streamAllIds()).thenReturn(Stream.of(1L, 2L));
+
+        knownUserIds.warm();
+
+        assertTrue(knownUserIds.contains(1L));
+        assertTrue(knownUserIds.contains(2L));
+        assertFalse(knownUserIds.contains(3L));
+
+        knownUserIds.addAfterCommit(3L);
+        knownUserIds.removeAfterCommit(1L);
+
+        assertTrue(knownUserIds.contains(3L));
+        assertFalse(knownUserIds.contains(1L));
+    }
+
+    @Test
+    void deleteDuringWarmUpIsNotUndoneByWarmUp() {
+        when(userRepository.streamAllIds()).thenAnswer(invocation -> {
+            // строку прочитали, а удаление закоммитилось раньше, чем прогрев закончился
+            knownUserIds.removeAfterCommit(1L);
+            return Stream.of(1L, 2L);
+        });
+
+        knownUserIds.warm();
+
+        assertFalse(knownUserIds.contains(1L));
+        assertTrue(knownUserIds.contains(2L));
+    }
+
+    @Test
+    void idsOutsideIntRangeAreNeverKnown() {
+        knownUserIds.add(Integer.MAX_VALUE + 1L);
+
+        assertFalse(knownUserIds.contains(Integer.MAX_VALUE + 1L));
+    }
+}
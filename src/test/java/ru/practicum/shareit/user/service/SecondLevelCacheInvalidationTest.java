@@ -0,0 +1,168 @@
+package ru.practicum.shareit.user.service;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.shareit.item.dto.ItemCreateDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemUpdateDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserCreateDto;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserUpdateDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Кеш второго уровня после изменений: каждое чтение идёт через кеш (сущность в нём до и после),
+// поэтому устаревшая запись в регионе сразу видна как неверное значение
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheInvalidationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRequestService requestService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = entityManagerFactory.getCache();
+    }
+
+    @Test
+    void updateUserReplacesCachedUser() {
+        UserDto user = createUser();
+        userRepository.findById(user.getId());
+        assertTrue(cache.contains(User.class, user.getId()));
+
+        String email = UUID.randomUUID() + "@mail.ru";
+        userService.updateUser(user.getId(), UserUpdateDto.builder().name("Новое имя").email(email).build());
+
+        UserDto cached = userService.getUserById(user.getId());
+        assertEquals("Новое имя", cached.getName());
+        assertEquals(email, cached.getEmail());
+    }
+
+    @Test
+    void updateItemReplacesCachedItem() {
+        UserDto owner = createUser();
+        ItemDto item = createItem(owner.getId(), null);
+        itemRepository.findById(item.getId());
+        assertTrue(cache.contains(Item.class, item.getId()));
+
+        itemService.updateItem(item.getId(),
+                ItemUpdateDto.builder().name("Перфоратор").available(false).build(), owner.getId());
+
+        Item cached = itemRepository.findById(item.getId()).orElseThrow();
+        assertEquals("Перфоратор", cached.getName());
+        assertFalse(cached.getAvailable());
+    }
+
+    @Test
+    void deleteUserEvictsCascadedItems() {
+        UserDto owner = createUser();
+        ItemDto item = createItem(owner.getId(), null);
+        itemRepository.findById(item.getId());
+        userRepository.findById(owner.getId());
+
+        userService.deleteUser(owner.getId());
+
+        assertFalse(cache.contains(User.class, owner.getId()));
+        assertFalse(cache.contains(Item.class, item.getId()));
+        assertTrue(userRepository.findById(owner.getId()).isEmpty());
+        assertTrue(itemRepository.findById(item.getId()).isEmpty());
+    }
+
+    @Test
+    void deleteUserClearsRequestOfOthersCachedItems() {
+        UserDto requestor = createUser();
+        UserDto owner = createUser();
+        ItemRequestDto request = requestService.addRequest(
+                ItemRequestDto.builder().description("Нужна дрель").build(), requestor.getId());
+        ItemDto item = createItem(owner.getId(), request.getId());
+        itemRepository.findById(item.getId());
+        assertTrue(cache.contains(Item.class, item.getId()));
+
+        // request_id вещи обнуляет БД (ON DELETE SET NULL), в обход Hibernate
+        userService.deleteUser(requestor.getId());
+
+        assertNull(itemRepository.findById(item.getId()).orElseThrow().getRequest());
+    }
+
+    @Test
+    void deleteUserKeepsUnrelatedItemsCached() {
+        UserDto owner = createUser();
+        ItemDto item = createItem(owner.getId(), null);
+        UserDto stranger = createUser();
+        itemRepository.findById(item.getId());
+        assertTrue(cache.contains(Item.class, item.getId()));
+
+        userService.deleteUser(stranger.getId());
+
+        assertTrue(cache.contains(Item.class, item.getId()));
+    }
+
+    @Test
+    void deleteRequestEvictsOnlyItsItems() {
+        UserDto requestor = createUser();
+        UserDto owner = createUser();
+        ItemRequestDto request = requestService.addRequest(
+                ItemRequestDto.builder().description("Нужна дрель").build(), requestor.getId());
+        ItemDto answer = createItem(owner.getId(), request.getId());
+        ItemDto unrelated = createItem(owner.getId(), null);
+        itemRepository.findById(answer.getId());
+        itemRepository.findById(unrelated.getId());
+
+        requestService.deleteRequest(request.getId(), requestor.getId());
+
+        assertFalse(cache.contains(Item.class, answer.getId()));
+        assertTrue(cache.contains(Item.class, unrelated.getId()));
+        assertNull(itemRepository.findById(answer.getId()).orElseThrow().getRequest());
+    }
+
+    private UserDto createUser() {
+        return userService.createUser(UserCreateDto.builder()
+                .name("Пользователь")
+                .email(UUID.randomUUID() + "@mail.ru")
+                .build());
+    }
+
+    private ItemDto createItem(Long ownerId, Long requestId) {
+        return itemService.addItem(ItemCreateDto.builder()
+                .name("Дрель")
+                .description("Простая дрель")
+                .available(true)
+                .requestId(requestId)
+                .build(), ownerId);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.util;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.KnownUserIds;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestContextTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    private final Cache cache = mock(Cache.class);
+    private final KnownUserIds knownUserIds =
+            new KnownUserIds(userRepository, mock(PlatformTransactionManager.class));
+    private final RequestContext requestContext =
+            new RequestContext(userRepository, entityManagerFactory, knownUserIds);
+
+    @BeforeEach
+    void setUp() {
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+    }
+
+    @Test
+    void knownUserIsCheckedWithoutDatabase() {
+        knownUserIds.add(1L);
+
+        requestContext.checkUserExists(1L);
+
+        verify(userRepository, never()).existsById(1L);
+    }
+
+    @Test
+    void userFoundInDatabaseBecomesKnown() {
+        when(userRepository.existsById(2L)).thenReturn(true);
+
+        requestContext.checkUserExists(2L);
+
+        assertTrue(knownUserIds.contains(2L));
+    }
+
+    @Test
+    void unknownUserIsRejected() {
+        when(cache.contains(User.class, 3L)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> requestContext.checkUserExists(3L));
+    }
+}